@@ -0,0 +1,605 @@
+package net.ninjadev.ninjaconfig.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Annotation processor generating reflection-free codecs for classes
+ * annotated with {@code @GenerateCodec}.
+ *
+ * <p>For every annotated class, and for every nested POJO reachable through
+ * its {@code @Expose} fields, a {@code <Name>_NinjaCodec} class is written to
+ * the same package. The generated code reads and writes the nested-comment
+ * JSON format of {@code GsonNestedCommentCodec} with direct field access and
+ * uses {@code CodecSupport} for the shared stream handling. Types without
+ * dedicated code (anything that is not a primitive, string, enum, array,
+ * collection, string-keyed map or exposed POJO) go through a Gson adapter.</p>
+ */
+@SupportedAnnotationTypes(CodecProcessor.GENERATE_CODEC)
+public final class CodecProcessor extends AbstractProcessor {
+
+    static final String GENERATE_CODEC = "net.ninjadev.ninjaconfig.annotation.GenerateCodec";
+    static final String COMMENT = "net.ninjadev.ninjaconfig.annotation.Comment";
+    static final String EXPOSE = "com.google.gson.annotations.Expose";
+
+    /** Must match {@code CodecSupport.GENERATED_SUFFIX}. */
+    static final String SUFFIX = "_NinjaCodec";
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        Deque<TypeElement> queue = new ArrayDeque<>();
+        for (TypeElement annotation : annotations) {
+            for (Element e : round.getElementsAnnotatedWith(annotation)) {
+                if (e.getKind() != ElementKind.CLASS) {
+                    error(e, "@GenerateCodec can only be applied to classes");
+                    continue;
+                }
+                queue.add((TypeElement) e);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            TypeElement type = queue.poll();
+            if (!generated.add(type.getQualifiedName().toString())) continue;
+
+            String pkg = packageOf(processingEnv.getElementUtils(), type);
+            String codec = (pkg.isEmpty() ? "" : pkg + ".") + codecSimpleName(type);
+            if (processingEnv.getElementUtils().getTypeElement(codec) != null) continue;
+
+            new CodecWriter(type, queue).generate();
+        }
+        return true;
+    }
+
+    private void error(Element e, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, e);
+    }
+
+    private static String packageOf(Elements elements, TypeElement type) {
+        return elements.getPackageOf(type).getQualifiedName().toString();
+    }
+
+    /** @return the flattened simple name of the codec, e.g. {@code Outer_Inner_NinjaCodec} */
+    private static String codecSimpleName(TypeElement type) {
+        StringBuilder sb = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing instanceof TypeElement outer) {
+            sb.insert(0, outer.getSimpleName() + "_");
+            enclosing = outer.getEnclosingElement();
+        }
+        return sb.append(SUFFIX).toString();
+    }
+
+    private static boolean hasAnnotation(Element e, String name) {
+        for (AnnotationMirror m : e.getAnnotationMirrors()) {
+            if (((TypeElement) m.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String annotationValue(Element e, String name) {
+        for (AnnotationMirror m : e.getAnnotationMirrors()) {
+            if (!((TypeElement) m.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) continue;
+            for (var entry : m.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("value")) {
+                    return String.valueOf(entry.getValue().getValue());
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Generates the codec source for one class. */
+    private final class CodecWriter {
+        private final Elements elements = processingEnv.getElementUtils();
+        private final Types types = processingEnv.getTypeUtils();
+
+        private final TypeElement type;
+        private final Deque<TypeElement> queue;
+        private final String typeName;
+
+        private final StringBuilder helpers = new StringBuilder();
+        private final StringBuilder adapters = new StringBuilder();
+        private final Map<String, String> readHelpers = new HashMap<>();
+        private final Map<String, String> writeHelpers = new HashMap<>();
+        private final Map<String, String> adapterFields = new HashMap<>();
+        private boolean failed;
+
+        CodecWriter(TypeElement type, Deque<TypeElement> queue) {
+            this.type = type;
+            this.queue = queue;
+            this.typeName = type.getQualifiedName().toString();
+        }
+
+        void generate() {
+            if (!type.getTypeParameters().isEmpty()) {
+                error(type, "@GenerateCodec classes must not be generic");
+                return;
+            }
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                error(type, "classes with generated codecs must not be private");
+                return;
+            }
+
+            List<VariableElement> fields = new ArrayList<>();
+            for (VariableElement f : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                Set<Modifier> m = f.getModifiers();
+                if (m.contains(Modifier.STATIC) || m.contains(Modifier.TRANSIENT) || !hasAnnotation(f, EXPOSE)) continue;
+                if (m.contains(Modifier.PRIVATE) || m.contains(Modifier.FINAL)) {
+                    error(f, "fields bound by generated codecs must not be private or final");
+                    failed = true;
+                }
+                fields.add(f);
+            }
+            if (failed) return;
+
+            StringBuilder readField = new StringBuilder();
+            StringBuilder writeFields = new StringBuilder();
+            StringBuilder comments = new StringBuilder();
+            for (int i = 0; i < fields.size(); i++) {
+                VariableElement f = fields.get(i);
+                String name = f.getSimpleName().toString();
+                TypeMirror t = f.asType();
+
+                readField.append("            case ").append(literal(name)).append(":\n")
+                        .append("                target.").append(name).append(" = ").append(readExpr(t, f)).append(";\n")
+                        .append("                return ").append(i).append(";\n");
+
+                writeFields.append("        out.name(").append(literal(name)).append(").beginObject().name(\"value\");\n")
+                        .append("        ").append(writeStmt(t, "value." + name, f)).append("\n");
+                String comment = annotationValue(f, COMMENT);
+                if (comment != null && !comment.isBlank()) {
+                    comments.append("    private static final String COMMENT_").append(i).append(" = CodecSupport.jsonString(")
+                            .append(literal(comment)).append(");\n");
+                    writeFields.append("        out.name(\"comment\").jsonValue(COMMENT_").append(i).append(");\n");
+                }
+                writeFields.append("        out.endObject();\n");
+            }
+            if (failed) return;
+
+            String pkg = packageOf(elements, type);
+            String codecName = codecSimpleName(type);
+            StringBuilder src = new StringBuilder();
+            if (!pkg.isEmpty()) src.append("package ").append(pkg).append(";\n\n");
+            src.append("import com.google.gson.JsonSyntaxException;\n")
+                    .append("import com.google.gson.TypeAdapter;\n")
+                    .append("import com.google.gson.reflect.TypeToken;\n")
+                    .append("import com.google.gson.stream.JsonReader;\n")
+                    .append("import com.google.gson.stream.JsonToken;\n")
+                    .append("import com.google.gson.stream.JsonWriter;\n")
+                    .append("import net.ninjadev.ninjaconfig.codec.CodecSupport;\n")
+                    .append("import net.ninjadev.ninjaconfig.codec.ConfigCodec;\n")
+                    .append("import net.ninjadev.ninjaconfig.codec.MergeResult;\n")
+                    .append("import net.ninjadev.ninjaconfig.codec.StringDeduplicator;\n\n")
+                    .append("import java.io.IOException;\n")
+                    .append("import java.io.OutputStream;\n")
+                    .append("import java.nio.file.Files;\n")
+                    .append("import java.nio.file.Path;\n\n")
+                    .append("/** Generated codec for {@link ").append(typeName).append("}. */\n")
+                    .append("@javax.annotation.processing.Generated(\"").append(CodecProcessor.class.getName()).append("\")\n")
+                    .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                    .append("public final class ").append(codecName).append(" implements ConfigCodec {\n\n")
+                    .append("    private static final int FIELD_COUNT = ").append(fields.size()).append(";\n")
+                    .append(comments)
+                    .append(adapters)
+                    .append("\n    public ").append(codecName).append("() {}\n\n")
+                    .append("    @Override\n")
+                    .append("    public <T> MergeResult mergeInto(Path file, T target) {\n")
+                    .append("        return mergeInto(file, target, null);\n")
+                    .append("    }\n\n")
+                    .append("    @Override\n")
+                    .append("    public <T> MergeResult mergeInto(Path file, T target, StringDeduplicator strings) {\n")
+                    .append("        if (!Files.exists(file)) {\n")
+                    .append("            return new MergeResult(false, true, false);\n")
+                    .append("        }\n")
+                    .append("        ").append(typeName).append(" t = (").append(typeName).append(") target;\n")
+                    .append("        return CodecSupport.merge(file, FIELD_COUNT, strings, (in, name) -> readField(in, name, t));\n")
+                    .append("    }\n\n")
+                    .append("    @Override\n")
+                    .append("    public void write(Path file, Object instance) throws IOException {\n")
+                    .append("        ").append(typeName).append(" value = (").append(typeName).append(") instance;\n")
+                    .append("        CodecSupport.write(file, out -> writeFields(out, value));\n")
+                    .append("    }\n\n")
+                    .append("    @Override\n")
+                    .append("    public void write(OutputStream stream, Object instance) throws IOException {\n")
+                    .append("        ").append(typeName).append(" value = (").append(typeName).append(") instance;\n")
+                    .append("        CodecSupport.write(stream, out -> writeFields(out, value));\n")
+                    .append("    }\n\n")
+                    .append("    @Override\n")
+                    .append("    public String defaultExtension() { return \".json\"; }\n\n")
+                    .append("    public static int readField(JsonReader in, String name, ").append(typeName).append(" target) throws IOException {\n")
+                    .append("        switch (name) {\n")
+                    .append(readField)
+                    .append("            default:\n")
+                    .append("                return -1;\n")
+                    .append("        }\n")
+                    .append("    }\n\n");
+
+            if (isInstantiable(type)) {
+                src.append("    public static ").append(typeName).append(" readValue(JsonReader in) throws IOException {\n")
+                        .append("        if (in.peek() == JsonToken.NULL) {\n")
+                        .append("            in.nextNull();\n")
+                        .append("            return null;\n")
+                        .append("        }\n")
+                        .append("        ").append(typeName).append(" value = new ").append(typeName).append("();\n")
+                        .append("        in.beginObject();\n")
+                        .append("        while (in.hasNext()) {\n")
+                        .append("            if (readField(in, in.nextName(), value) < 0) in.skipValue();\n")
+                        .append("        }\n")
+                        .append("        in.endObject();\n")
+                        .append("        return value;\n")
+                        .append("    }\n\n");
+            }
+
+            src.append("    public static void writeFields(JsonWriter out, ").append(typeName).append(" value) throws IOException {\n")
+                    .append("        out.beginObject();\n")
+                    .append(writeFields)
+                    .append("        out.endObject();\n")
+                    .append("    }\n\n")
+                    .append("    public static void writeValue(JsonWriter out, ").append(typeName).append(" value) throws IOException {\n")
+                    .append("        if (value == null) {\n")
+                    .append("            out.nullValue();\n")
+                    .append("            return;\n")
+                    .append("        }\n")
+                    .append("        writeFields(out, value);\n")
+                    .append("    }\n")
+                    .append(helpers)
+                    .append("}\n");
+
+            String qualified = pkg.isEmpty() ? codecName : pkg + "." + codecName;
+            try {
+                JavaFileObject file = processingEnv.getFiler().createSourceFile(qualified, type);
+                try (Writer w = file.openWriter()) {
+                    w.write(src.toString());
+                }
+            } catch (IOException ex) {
+                error(type, "Failed to write " + qualified + ": " + ex.getMessage());
+            }
+        }
+
+        /** @return an expression reading a value of type {@code t} from {@code in} */
+        private String readExpr(TypeMirror t, Element site) {
+            switch (t.getKind()) {
+                case INT: return "in.nextInt()";
+                case LONG: return "in.nextLong()";
+                case DOUBLE: return "in.nextDouble()";
+                case FLOAT: return "(float) in.nextDouble()";
+                case SHORT: return "CodecSupport.readShortValue(in)";
+                case BYTE: return "CodecSupport.readByteValue(in)";
+                case BOOLEAN: return "CodecSupport.readBoolean(in)";
+                case CHAR: return "CodecSupport.readChar(in)";
+                case ARRAY: return readArrayHelper((ArrayType) t, site) + "(in)";
+                case DECLARED: break;
+                default: return adapterField(t, site) + ".read(in)";
+            }
+
+            DeclaredType d = (DeclaredType) t;
+            TypeElement e = (TypeElement) d.asElement();
+            switch (e.getQualifiedName().toString()) {
+                case "java.lang.String": return "CodecSupport.readString(in)";
+                case "java.lang.Integer": return "CodecSupport.readInteger(in)";
+                case "java.lang.Long": return "CodecSupport.readLong(in)";
+                case "java.lang.Double": return "CodecSupport.readDouble(in)";
+                case "java.lang.Float": return "CodecSupport.readFloat(in)";
+                case "java.lang.Short": return "CodecSupport.readShort(in)";
+                case "java.lang.Byte": return "CodecSupport.readByte(in)";
+                case "java.lang.Boolean": return "CodecSupport.readBoxedBoolean(in)";
+                case "java.lang.Character": return "CodecSupport.readCharacter(in)";
+                default: break;
+            }
+
+            if (e.getKind() == ElementKind.ENUM) {
+                return "CodecSupport.readEnum(in, " + erasure(t) + ".class)";
+            }
+            if (isPojo(e)) {
+                if (!isInstantiable(e)) {
+                    error(site, e.getQualifiedName() + " needs a non-private no-arg constructor for generated codecs");
+                    failed = true;
+                    return "null";
+                }
+                queue.add(e);
+                return codecOf(e) + ".readValue(in)";
+            }
+            String container = containerKind(d);
+            if (container != null) return readContainerHelper(d, container, site) + "(in)";
+            return adapterField(t, site) + ".read(in)";
+        }
+
+        /** @return a statement writing the value of {@code expr} (of type {@code t}) to {@code out} */
+        private String writeStmt(TypeMirror t, String expr, Element site) {
+            switch (t.getKind()) {
+                case INT: case LONG: case SHORT: case BYTE: case BOOLEAN:
+                    return "out.value(" + expr + ");";
+                case DOUBLE: return "CodecSupport.writeDouble(out, " + expr + ");";
+                case FLOAT: return "CodecSupport.writeFloat(out, " + expr + ");";
+                case CHAR: return "out.value(String.valueOf(" + expr + "));";
+                case ARRAY: return writeArrayHelper((ArrayType) t, site) + "(out, " + expr + ");";
+                case DECLARED: break;
+                default: return adapterField(t, site) + ".write(out, " + expr + ");";
+            }
+
+            DeclaredType d = (DeclaredType) t;
+            TypeElement e = (TypeElement) d.asElement();
+            switch (e.getQualifiedName().toString()) {
+                case "java.lang.String": return "out.value(" + expr + ");";
+                case "java.lang.Integer": case "java.lang.Long": case "java.lang.Short": case "java.lang.Byte":
+                    return "out.value((Number) " + expr + ");";
+                case "java.lang.Double": return "CodecSupport.writeBoxedDouble(out, " + expr + ");";
+                case "java.lang.Float": return "CodecSupport.writeBoxedFloat(out, " + expr + ");";
+                case "java.lang.Boolean": return "out.value(" + expr + ");";
+                case "java.lang.Character": return "CodecSupport.writeCharacter(out, " + expr + ");";
+                default: break;
+            }
+
+            if (e.getKind() == ElementKind.ENUM) return "CodecSupport.writeEnum(out, " + expr + ");";
+            if (isPojo(e)) return codecOf(e) + ".writeValue(out, " + expr + ");";
+            String container = containerKind(d);
+            if (container != null) return writeContainerHelper(d, container, site) + "(out, " + expr + ");";
+            return adapterField(t, site) + ".write(out, " + expr + ");";
+        }
+
+        private String readArrayHelper(ArrayType t, Element site) {
+            String key = t.toString();
+            String existing = readHelpers.get(key);
+            if (existing != null) return existing;
+
+            TypeMirror component = t.getComponentType();
+            if (!isReifiable(component)) {
+                return adapterField(t, site) + ".read";
+            }
+
+            String name = "readArray" + readHelpers.size();
+            readHelpers.put(key, name);
+            String componentName = erasure(component);
+            String element = readExpr(component, site);
+
+            helpers.append("\n    private static ").append(key).append(" ").append(name).append("(JsonReader in) throws IOException {\n")
+                    .append("        if (in.peek() == JsonToken.NULL) {\n")
+                    .append("            in.nextNull();\n")
+                    .append("            return null;\n")
+                    .append("        }\n")
+                    .append("        ").append(key).append(" values = new ").append(newArray(componentName, "8")).append(";\n")
+                    .append("        int size = 0;\n")
+                    .append("        in.beginArray();\n")
+                    .append("        while (in.hasNext()) {\n")
+                    .append("            if (size == values.length) values = java.util.Arrays.copyOf(values, size * 2);\n")
+                    .append("            values[size++] = ").append(element).append(";\n")
+                    .append("        }\n")
+                    .append("        in.endArray();\n")
+                    .append("        return java.util.Arrays.copyOf(values, size);\n")
+                    .append("    }\n");
+            return name;
+        }
+
+        private String writeArrayHelper(ArrayType t, Element site) {
+            String key = t.toString();
+            String existing = writeHelpers.get(key);
+            if (existing != null) return existing;
+
+            String name = "writeArray" + writeHelpers.size();
+            writeHelpers.put(key, name);
+            TypeMirror component = t.getComponentType();
+            String element = writeStmt(component, "e", site);
+
+            helpers.append("\n    private static void ").append(name).append("(JsonWriter out, ").append(key).append(" values) throws IOException {\n")
+                    .append("        if (values == null) {\n")
+                    .append("            out.nullValue();\n")
+                    .append("            return;\n")
+                    .append("        }\n")
+                    .append("        out.beginArray();\n")
+                    .append("        for (").append(component).append(" e : values) {\n")
+                    .append("            ").append(element).append("\n")
+                    .append("        }\n")
+                    .append("        out.endArray();\n")
+                    .append("    }\n");
+            return name;
+        }
+
+        private String readContainerHelper(DeclaredType t, String kind, Element site) {
+            String key = t.toString();
+            String existing = readHelpers.get(key);
+            if (existing != null) return existing;
+
+            String impl = implementation(t, kind);
+            List<? extends TypeMirror> args = t.getTypeArguments();
+            TypeMirror element = kind.equals("map") ? args.get(1) : args.get(0);
+            if (impl == null || element.getKind() == TypeKind.WILDCARD || element.getKind() == TypeKind.TYPEVAR) {
+                return adapterField(t, site) + ".read";
+            }
+
+            String name = "read" + (kind.equals("map") ? "Map" : "Collection") + readHelpers.size();
+            readHelpers.put(key, name);
+            String value = readExpr(element, site);
+
+            helpers.append("\n    private static ").append(key).append(" ").append(name).append("(JsonReader in) throws IOException {\n")
+                    .append("        if (in.peek() == JsonToken.NULL) {\n")
+                    .append("            in.nextNull();\n")
+                    .append("            return null;\n")
+                    .append("        }\n")
+                    .append("        ").append(key).append(" values = new ").append(impl).append("<>();\n");
+            if (kind.equals("map")) {
+                helpers.append("        in.beginObject();\n")
+                        .append("        while (in.hasNext()) {\n")
+                        .append("            String key = in.nextName();\n")
+                        .append("            if (values.put(key, ").append(value).append(") != null) {\n")
+                        .append("                throw new JsonSyntaxException(\"duplicate key: \" + key);\n")
+                        .append("            }\n")
+                        .append("        }\n")
+                        .append("        in.endObject();\n");
+            } else {
+                helpers.append("        in.beginArray();\n")
+                        .append("        while (in.hasNext()) {\n")
+                        .append("            values.add(").append(value).append(");\n")
+                        .append("        }\n")
+                        .append("        in.endArray();\n");
+            }
+            helpers.append("        return values;\n")
+                    .append("    }\n");
+            return name;
+        }
+
+        private String writeContainerHelper(DeclaredType t, String kind, Element site) {
+            String key = t.toString();
+            String existing = writeHelpers.get(key);
+            if (existing != null) return existing;
+
+            List<? extends TypeMirror> args = t.getTypeArguments();
+            TypeMirror element = kind.equals("map") ? args.get(1) : args.get(0);
+            if (element.getKind() == TypeKind.WILDCARD || element.getKind() == TypeKind.TYPEVAR) {
+                return adapterField(t, site) + ".write";
+            }
+
+            String name = "write" + (kind.equals("map") ? "Map" : "Collection") + writeHelpers.size();
+            writeHelpers.put(key, name);
+            String value = writeStmt(element, kind.equals("map") ? "e.getValue()" : "e", site);
+
+            helpers.append("\n    private static void ").append(name).append("(JsonWriter out, ").append(key).append(" values) throws IOException {\n")
+                    .append("        if (values == null) {\n")
+                    .append("            out.nullValue();\n")
+                    .append("            return;\n")
+                    .append("        }\n");
+            if (kind.equals("map")) {
+                helpers.append("        out.beginObject();\n")
+                        .append("        for (java.util.Map.Entry<String, ").append(element).append("> e : values.entrySet()) {\n")
+                        .append("            if (e.getKey() == null) continue;\n")
+                        .append("            out.name(e.getKey());\n")
+                        .append("            ").append(value).append("\n")
+                        .append("        }\n")
+                        .append("        out.endObject();\n");
+            } else {
+                helpers.append("        out.beginArray();\n")
+                        .append("        for (").append(element).append(" e : values) {\n")
+                        .append("            ").append(value).append("\n")
+                        .append("        }\n")
+                        .append("        out.endArray();\n");
+            }
+            helpers.append("    }\n");
+            return name;
+        }
+
+        private String adapterField(TypeMirror t, Element site) {
+            if (t.getKind() == TypeKind.TYPEVAR || t.getKind() == TypeKind.ERROR) {
+                error(site, "cannot generate codec code for type " + t);
+                failed = true;
+                return "null";
+            }
+
+            String boxed = t.getKind().isPrimitive() ? types.boxedClass((PrimitiveType) t).toString() : t.toString();
+            String existing = adapterFields.get(boxed);
+            if (existing != null) return existing;
+
+            String name = "ADAPTER_" + adapterFields.size();
+            adapterFields.put(boxed, name);
+            adapters.append("    private static final TypeAdapter<").append(boxed).append("> ").append(name)
+                    .append(" = CodecSupport.adapter(new TypeToken<").append(boxed).append(">() {});\n");
+            return name;
+        }
+
+        /** @return "collection", "map" or null when the type is not a supported container */
+        private String containerKind(DeclaredType t) {
+            if (t.getTypeArguments().isEmpty()) return null;
+            if (isSubtype(t, "java.util.Map")) {
+                return types.isSameType(t.getTypeArguments().get(0), elements.getTypeElement("java.lang.String").asType())
+                        && t.getTypeArguments().size() == 2 ? "map" : null;
+            }
+            if (isSubtype(t, "java.util.Collection") && t.getTypeArguments().size() == 1) return "collection";
+            return null;
+        }
+
+        /** @return the class instantiated for a declared container type, or null when there is none */
+        private String implementation(DeclaredType t, String kind) {
+            TypeElement e = (TypeElement) t.asElement();
+            if (e.getKind() == ElementKind.CLASS && !e.getModifiers().contains(Modifier.ABSTRACT)) {
+                return isInstantiable(e) ? e.getQualifiedName().toString() : null;
+            }
+
+            switch (e.getQualifiedName().toString()) {
+                case "java.util.Map": return "java.util.LinkedHashMap";
+                case "java.util.SortedMap": case "java.util.NavigableMap": return "java.util.TreeMap";
+                case "java.util.Collection": case "java.util.List": return "java.util.ArrayList";
+                case "java.util.Set": return "java.util.LinkedHashSet";
+                case "java.util.SortedSet": case "java.util.NavigableSet": return "java.util.TreeSet";
+                case "java.util.Queue": case "java.util.Deque": return "java.util.ArrayDeque";
+                default: return null;
+            }
+        }
+
+        private boolean isSubtype(DeclaredType t, String name) {
+            TypeElement target = elements.getTypeElement(name);
+            return target != null && types.isSubtype(types.erasure(t), types.erasure(target.asType()));
+        }
+
+        /** A POJO is a class that exposes fields or asks for a codec itself. */
+        private boolean isPojo(TypeElement e) {
+            if (e.getKind() != ElementKind.CLASS) return false;
+            if (hasAnnotation(e, GENERATE_CODEC)) return true;
+            for (VariableElement f : ElementFilter.fieldsIn(e.getEnclosedElements())) {
+                if (hasAnnotation(f, EXPOSE) && !f.getModifiers().contains(Modifier.STATIC)) return true;
+            }
+            return false;
+        }
+
+        private boolean isInstantiable(TypeElement e) {
+            if (e.getModifiers().contains(Modifier.ABSTRACT)) return false;
+            if (e.getNestingKind() == NestingKind.MEMBER && !e.getModifiers().contains(Modifier.STATIC)) return false;
+            for (ExecutableElement c : ElementFilter.constructorsIn(e.getEnclosedElements())) {
+                if (c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE)) return true;
+            }
+            return false;
+        }
+
+        private boolean isReifiable(TypeMirror t) {
+            if (t.getKind().isPrimitive()) return true;
+            if (t.getKind() == TypeKind.ARRAY) return isReifiable(((ArrayType) t).getComponentType());
+            return t.getKind() == TypeKind.DECLARED && ((DeclaredType) t).getTypeArguments().isEmpty();
+        }
+
+        private String codecOf(TypeElement e) {
+            String pkg = packageOf(elements, e);
+            return (pkg.isEmpty() ? "" : pkg + ".") + codecSimpleName(e);
+        }
+
+        private String erasure(TypeMirror t) {
+            return types.erasure(t).toString();
+        }
+
+        private String newArray(String component, String length) {
+            int dims = 0;
+            String base = component;
+            while (base.endsWith("[]")) {
+                base = base.substring(0, base.length() - 2);
+                dims++;
+            }
+            return base + "[" + length + "]" + "[]".repeat(dims);
+        }
+
+        private String literal(String value) {
+            return elements.getConstantExpression(value);
+        }
+    }
+}
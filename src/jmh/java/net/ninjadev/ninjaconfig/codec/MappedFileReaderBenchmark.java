@@ -0,0 +1,77 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link MappedFileReader} with {@link Files#newBufferedReader(Path)}
+ * for draining a config file, across file sizes, to place
+ * {@link GsonNestedCommentCodec.Builder#mmapThreshold(long)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MappedFileReaderBenchmark {
+
+    @Param({"4096", "65536", "1048576", "16777216"})
+    public int size;
+
+    private final char[] buffer = new char[8192];
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        StringBuilder sb = new StringBuilder(size + 64);
+        sb.append("{\n");
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append("  \"key").append(i).append("\": {\"value\": \"minecraft:oak_log\", \"comment\": \"Block \u00e9 ")
+                    .append(i).append("\"},\n");
+        }
+        sb.append("  \"end\": 0\n}\n");
+        file = Files.createTempFile("ninjaconfig-bench", ".json");
+        Files.writeString(file, sb, StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long buffered() throws IOException {
+        return drain(MappedFileReader.open(file, -1));
+    }
+
+    @Benchmark
+    public long mapped() throws IOException {
+        return drain(MappedFileReader.open(file, 0));
+    }
+
+    private long drain(Reader r) throws IOException {
+        long chars = 0;
+        try (r) {
+            for (int n; (n = r.read(buffer, 0, buffer.length)) != -1; ) chars += n;
+        }
+        return chars;
+    }
+}
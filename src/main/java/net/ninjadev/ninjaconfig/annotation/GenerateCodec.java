@@ -0,0 +1,23 @@
+package net.ninjadev.ninjaconfig.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Request a reflection-free codec for the annotated configuration class.
+ *
+ * <p>When the NinjaConfig annotation processor is on the compiler's
+ * annotation processor path it generates, next to the annotated class, a
+ * plain-Java reader/writer for the nested-comment JSON format covering the
+ * class and every nested POJO it exposes. {@code ConfigManager} uses the
+ * generated codec automatically when it is present and otherwise falls back
+ * to the reflective {@code GsonNestedCommentCodec}.</p>
+ *
+ * <p>Exposed fields of the annotated class and of its nested POJOs must not be
+ * {@code private} or {@code final}, and nested POJOs need a non-private no-arg
+ * constructor.</p>
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.CLASS)
+public @interface GenerateCodec {
+}
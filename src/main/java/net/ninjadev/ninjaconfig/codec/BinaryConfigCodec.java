@@ -0,0 +1,290 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.TypeAdapter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary codec for configs that nobody edits by hand, such as large
+ * dedicated-server configs. Files load without any text parsing and are a
+ * fraction of the size of the nested-comment JSON form.
+ *
+ * <p>A file starts with the magic bytes {@code NCB} and a format version,
+ * followed by one entry per field: the field id and the payload length as
+ * unsigned varints, then the payload. Field ids are derived from the field
+ * names of the class schema, so fields may be reordered, added or removed
+ * between versions; entries with unknown ids are skipped by their length.
+ * A payload is one value in the tagged form described in
+ * {@link BinaryJsonWriter}. Non-primitive fields are streamed through the
+ * same Gson adapters as the JSON codecs, via {@link BinaryJsonWriter} and
+ * {@link BinaryJsonReader}, so every type those support works here. A value
+ * that fails to bind leaves its field untouched: adapters build a new value
+ * and it is only stored once fully read.</p>
+ *
+ * <p>Comments are not stored. Use {@link #toNestedJson} and
+ * {@link #fromNestedJson} to convert a file to and from the nested-comment
+ * JSON form for inspection or editing.</p>
+ */
+public final class BinaryConfigCodec implements ConfigCodec {
+
+    private static final byte[] MAGIC = { 'N', 'C', 'B' };
+    private static final int VERSION = 1;
+
+    /* field ids and adapters resolved once per class */
+    private final ClassValue<Layout> layouts = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return new Layout(ClassSchema.of(type));
+        }
+    };
+
+    /** Create a binary codec. */
+    public BinaryConfigCodec() {}
+
+    /**
+     * Resolve the field ids of {@code type}.
+     *
+     * @param type config class
+     * @throws IllegalStateException if two exposed fields of {@code type} have the same field id
+     */
+    @Override
+    public void checkSupported(Class<?> type) {
+        layouts.get(type);
+    }
+
+    /**
+     * Merge the binary file at {@code file} into {@code target}. A field whose
+     * entry cannot be bound is reported as missing and keeps its value; a
+     * truncated file or one without the expected header is a parse error.
+     *
+     * @param file file to read
+     * @param target target instance to populate
+     * @param <T> concrete type of the target
+     * @return result indicating whether the file existed and if there were missing keys or parse errors
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target) throws IOException {
+        return mergeInto(file, target, null);
+    }
+
+    /**
+     * Merge as {@link #mergeInto(Path, Object)}, canonicalizing decoded
+     * strings through {@code strings}.
+     *
+     * @param file file to read
+     * @param target target instance to populate
+     * @param strings table to canonicalize decoded strings through, or {@code null}
+     * @param <T> concrete type of the target
+     * @return result as for {@link #mergeInto(Path, Object)}
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target, StringDeduplicator strings) throws IOException {
+        if (!Files.exists(file)) {
+            return new MergeResult(false, true, false);
+        }
+
+        Layout layout = layouts.get(target.getClass());
+        boolean[] seen = new boolean[layout.fields.size()];
+        boolean missing = false;
+
+        BinaryJsonReader in = new BinaryJsonReader(Files.readAllBytes(file), strings);
+        try {
+            readHeader(in);
+            while (in.hasRemaining()) {
+                int id = in.readVarint();
+                int length = in.readVarint();
+                int end = in.limitTo(length);
+
+                FieldSchema f = layout.field(id);
+                if (f != null) {
+                    try {
+                        readField(in, target, f, layout.adapters[f.index()]);
+                        if (in.position() != end) throw new IllegalStateException("Trailing data in field " + f.name());
+                        seen[f.index()] = true;
+                    } catch (RuntimeException ex) {
+                        missing = true;
+                    }
+                }
+                in.seek(end);
+            }
+        } catch (RuntimeException ex) {
+            return new MergeResult(true, true, true);
+        }
+
+        for (boolean s : seen) {
+            if (!s) missing = true;
+        }
+        return new MergeResult(true, missing, false);
+    }
+
+    /**
+     * Write {@code instance} to {@code file} in the binary form.
+     *
+     * @param file destination file
+     * @param instance instance to serialize
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(Path file, Object instance) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out, instance);
+        }
+    }
+
+    /**
+     * Write {@code instance} to {@code out}; see {@link #write(Path, Object)}.
+     *
+     * @param out destination stream, not closed
+     * @param instance instance to serialize
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(OutputStream out, Object instance) throws IOException {
+        Layout layout = layouts.get(instance.getClass());
+        BinaryJsonWriter doc = new BinaryJsonWriter();
+        BinaryJsonWriter payload = new BinaryJsonWriter();
+
+        doc.writeBytes(MAGIC);
+        doc.writeVarint(VERSION);
+        for (FieldSchema f : layout.fields) {
+            payload.reset();
+            writeField(payload, instance, f, layout.adapters[f.index()]);
+            doc.writeVarint(layout.ids[f.index()]);
+            doc.writeVarint(payload.size());
+            doc.writeBytes(payload);
+        }
+
+        doc.writeTo(out);
+        out.flush();
+    }
+
+    /** @return ".bin" */
+    @Override
+    public String defaultExtension() { return ".bin"; }
+
+    /**
+     * Convert a binary config file to the nested-comment JSON form by reading
+     * it into {@code scratch} and writing that with {@link GsonNestedCommentCodec}.
+     * Fields missing from {@code binary} are written with the values they
+     * have in {@code scratch}.
+     *
+     * @param binary binary file to read
+     * @param json JSON file to write
+     * @param scratch instance of the config class, normally at its defaults
+     * @throws IOException if the binary file is missing or malformed, or an I/O error occurs
+     */
+    public static void toNestedJson(Path binary, Path json, Object scratch) throws IOException {
+        convert(new BinaryConfigCodec(), binary, new GsonNestedCommentCodec(), json, scratch);
+    }
+
+    /**
+     * Convert a nested-comment (or flat) JSON config file to the binary form;
+     * the inverse of {@link #toNestedJson}.
+     *
+     * @param json JSON file to read
+     * @param binary binary file to write
+     * @param scratch instance of the config class, normally at its defaults
+     * @throws IOException if the JSON file is missing or malformed, or an I/O error occurs
+     */
+    public static void fromNestedJson(Path json, Path binary, Object scratch) throws IOException {
+        convert(new GsonNestedCommentCodec(), json, new BinaryConfigCodec(), binary, scratch);
+    }
+
+    private static void convert(ConfigCodec from, Path source, ConfigCodec to, Path dest, Object scratch) throws IOException {
+        MergeResult result = from.mergeInto(source, scratch);
+        if (!result.fileExists() || result.parseError()) {
+            throw new IOException("Cannot read " + source);
+        }
+        to.write(dest, scratch);
+    }
+
+    private static void readHeader(BinaryJsonReader in) {
+        for (byte b : MAGIC) {
+            if (in.readByte() != b) throw new IllegalStateException("Not a binary config file");
+        }
+        int version = in.readVarint();
+        if (version != VERSION) throw new IllegalStateException("Unsupported binary config version " + version);
+    }
+
+    private static void readField(BinaryJsonReader in, Object target, FieldSchema f, TypeAdapter<?> adapter) {
+        FieldAccessor a = f.accessor();
+        try {
+            switch (f.kind()) {
+                case INT -> a.setInt(target, in.nextInt());
+                case LONG -> a.setLong(target, in.nextLong());
+                case DOUBLE -> a.setDouble(target, in.nextDouble());
+                case FLOAT -> a.setFloat(target, (float) in.nextDouble());
+                case BOOLEAN -> a.setBoolean(target, CodecSupport.readBoolean(in));
+                case OBJECT -> f.set(target, adapter.read(in));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeField(BinaryJsonWriter out, Object instance, FieldSchema f, TypeAdapter<?> adapter) throws IOException {
+        FieldAccessor a = f.accessor();
+        switch (f.kind()) {
+            case INT -> out.value(a.getInt(instance));
+            case LONG -> out.value(a.getLong(instance));
+            case DOUBLE -> out.value(a.getDouble(instance));
+            case FLOAT -> out.value(a.getFloat(instance));
+            case BOOLEAN -> out.value(a.getBoolean(instance));
+            case OBJECT -> ((TypeAdapter<Object>) adapter).write(out, f.get(instance));
+        }
+    }
+
+    /** Field ids of one class, sorted for lookup, and its field adapters. */
+    private static final class Layout {
+        final List<FieldSchema> fields;
+        final int[] ids;
+        final TypeAdapter<?>[] adapters;
+        private final int[] sortedIds;
+        private final FieldSchema[] byId;
+
+        Layout(ClassSchema schema) {
+            this.fields = schema.fields();
+            this.ids = new int[fields.size()];
+            this.adapters = CodecSupport.fieldAdapters(schema.type());
+            for (FieldSchema f : fields) {
+                ids[f.index()] = fieldId(f.name());
+            }
+
+            this.sortedIds = ids.clone();
+            Arrays.sort(sortedIds);
+            this.byId = new FieldSchema[fields.size()];
+            for (FieldSchema f : fields) {
+                int slot = Arrays.binarySearch(sortedIds, ids[f.index()]);
+                if (byId[slot] != null) {
+                    throw new IllegalStateException("Fields " + byId[slot].name() + " and " + f.name()
+                            + " of " + schema.type().getName() + " have the same binary field id");
+                }
+                byId[slot] = f;
+            }
+        }
+
+        /** @return the field with {@code id}, or {@code null} when the class has none */
+        FieldSchema field(int id) {
+            int slot = Arrays.binarySearch(sortedIds, id);
+            return slot >= 0 ? byId[slot] : null;
+        }
+
+        /* 31-bit FNV-1a hash of the field name */
+        private static int fieldId(String name) {
+            int h = 0x811c9dc5;
+            for (int i = 0; i < name.length(); i++) {
+                h = (h ^ name.charAt(i)) * 0x01000193;
+            }
+            return h & 0x7fffffff;
+        }
+    }
+}
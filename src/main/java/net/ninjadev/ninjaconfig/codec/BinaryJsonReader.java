@@ -0,0 +1,335 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static net.ninjadev.ninjaconfig.codec.BinaryJsonWriter.*;
+
+/**
+ * {@link JsonReader} over values in the tagged binary form written by
+ * {@link BinaryJsonWriter}, so regular Gson type adapters can bind binary
+ * payloads directly without a text parser or an intermediate tree.
+ *
+ * <p>Numbers may be read as strings and strings as numbers, like the lenient
+ * text reader. Names and strings are canonicalized through the
+ * {@link StringDeduplicator} the reader was created with, if any. Gson code that reaches into the text reader's
+ * state instead of using the public API fails with an
+ * {@link UnsupportedOperationException}; maps are therefore read by
+ * {@link MapAdapterFactory}.</p>
+ */
+final class BinaryJsonReader extends JsonReader {
+
+    private static final int ARRAY = 0;
+    private static final int OBJECT_NAME = 1;
+    private static final int OBJECT_VALUE = 2;
+
+    private final byte[] buf;
+    private int pos;
+    private int limit;
+
+    /* container states, innermost last */
+    private int[] stack = new int[16];
+    private int depth;
+
+    private final StringDeduplicator strings;
+
+    /**
+     * @param buf encoded payload
+     * @param strings table to canonicalize names and strings through, or {@code null}
+     */
+    BinaryJsonReader(byte[] buf, StringDeduplicator strings) {
+        super(CodecSupport.UNREADABLE);
+        this.buf = buf;
+        this.limit = buf.length;
+        this.strings = strings;
+    }
+
+    /** @return offset of the next byte to read */
+    int position() { return pos; }
+
+    /** @return true when bytes remain before the end of the input */
+    boolean hasRemaining() { return pos < buf.length; }
+
+    /**
+     * Restrict reading to the next {@code length} bytes, holding one value.
+     *
+     * @param length length of the range
+     * @return the end offset of the range
+     */
+    int limitTo(int length) {
+        if (length < 0 || length > buf.length - pos) throw new IllegalStateException("Truncated entry at " + pos);
+        limit = pos + length;
+        depth = 0;
+        return limit;
+    }
+
+    /** Continue at {@code offset} with the whole input readable. */
+    void seek(int offset) {
+        pos = offset;
+        limit = buf.length;
+        depth = 0;
+    }
+
+    /** Read a raw byte, outside of the value structure. */
+    int readByte() {
+        if (pos >= limit) throw new IllegalStateException("Unexpected end of data at " + pos);
+        return buf[pos++];
+    }
+
+    /** Read an unsigned varint that fits an {@code int}, outside of the value structure. */
+    int readVarint() {
+        long v = readVarlong();
+        if (v < 0 || v > Integer.MAX_VALUE) throw new IllegalStateException("Varint out of range at " + pos);
+        return (int) v;
+    }
+
+    @Override
+    public JsonToken peek() {
+        if (depth == 0) {
+            if (pos >= limit) return JsonToken.END_DOCUMENT;
+        } else if (stack[depth - 1] == OBJECT_NAME) {
+            return peekByte() == 0 ? JsonToken.END_OBJECT : JsonToken.NAME;
+        }
+
+        int tag = peekByte();
+        return switch (tag) {
+            case TAG_END -> JsonToken.END_ARRAY;
+            case TAG_NULL -> JsonToken.NULL;
+            case TAG_FALSE, TAG_TRUE -> JsonToken.BOOLEAN;
+            case TAG_INT, TAG_DOUBLE, TAG_NUMBER -> JsonToken.NUMBER;
+            case TAG_STRING -> JsonToken.STRING;
+            case TAG_ARRAY -> JsonToken.BEGIN_ARRAY;
+            case TAG_OBJECT -> JsonToken.BEGIN_OBJECT;
+            default -> throw new IllegalStateException("Unknown tag " + tag + " at " + pos);
+        };
+    }
+
+    @Override
+    public void beginArray() {
+        expectTag(TAG_ARRAY);
+        push(ARRAY);
+    }
+
+    @Override
+    public void endArray() {
+        if (depth == 0 || stack[depth - 1] != ARRAY) throw unexpected("END_ARRAY");
+        expectTag(TAG_END);
+        depth--;
+        afterValue();
+    }
+
+    @Override
+    public void beginObject() {
+        expectTag(TAG_OBJECT);
+        push(OBJECT_NAME);
+    }
+
+    @Override
+    public void endObject() {
+        if (depth == 0 || stack[depth - 1] != OBJECT_NAME || peekByte() != 0) throw unexpected("END_OBJECT");
+        pos++;
+        depth--;
+        afterValue();
+    }
+
+    @Override
+    public boolean hasNext() {
+        JsonToken t = peek();
+        return t != JsonToken.END_ARRAY && t != JsonToken.END_OBJECT && t != JsonToken.END_DOCUMENT;
+    }
+
+    @Override
+    public String nextName() {
+        if (depth == 0 || stack[depth - 1] != OBJECT_NAME) throw unexpected("NAME");
+        int length = readVarint() - 1;
+        if (length < 0) throw unexpected("NAME");
+        stack[depth - 1] = OBJECT_VALUE;
+        String name = readUtf8(length);
+        return strings == null ? name : strings.canonicalizeName(name);
+    }
+
+    @Override
+    public String nextString() {
+        int tag = readTag();
+        String s = switch (tag) {
+            case TAG_STRING -> canonical(readUtf8(readVarint()));
+            case TAG_INT -> Long.toString(readZigzag());
+            case TAG_DOUBLE -> Double.toString(readDoubleBits());
+            case TAG_NUMBER -> readUtf8(readVarint());
+            default -> throw unexpectedTag("a string", tag);
+        };
+        afterValue();
+        return s;
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        int tag = readTag();
+        if (tag != TAG_TRUE && tag != TAG_FALSE) throw unexpectedTag("a boolean", tag);
+        afterValue();
+        return tag == TAG_TRUE;
+    }
+
+    @Override
+    public void nextNull() {
+        expectTag(TAG_NULL);
+        afterValue();
+    }
+
+    @Override
+    public double nextDouble() {
+        int tag = readTag();
+        double d = switch (tag) {
+            case TAG_INT -> readZigzag();
+            case TAG_DOUBLE -> readDoubleBits();
+            case TAG_NUMBER, TAG_STRING -> Double.parseDouble(readUtf8(readVarint()));
+            default -> throw unexpectedTag("a number", tag);
+        };
+        afterValue();
+        return d;
+    }
+
+    @Override
+    public long nextLong() {
+        int tag = readTag();
+        long l = switch (tag) {
+            case TAG_INT -> readZigzag();
+            case TAG_DOUBLE -> {
+                double d = readDoubleBits();
+                if ((long) d != d) throw new NumberFormatException("Expected a long but was " + d + " at " + pos);
+                yield (long) d;
+            }
+            case TAG_NUMBER, TAG_STRING -> new BigDecimal(readUtf8(readVarint())).longValueExact();
+            default -> throw unexpectedTag("a number", tag);
+        };
+        afterValue();
+        return l;
+    }
+
+    @Override
+    public int nextInt() {
+        int start = pos;
+        long l = nextLong();
+        if ((int) l != l) throw new NumberFormatException("Expected an int but was " + l + " at " + start);
+        return (int) l;
+    }
+
+    @Override
+    public void skipValue() {
+        if (depth > 0 && stack[depth - 1] == OBJECT_NAME) {
+            nextName();
+            return;
+        }
+        skipTagged();
+        afterValue();
+    }
+
+    @Override
+    public String getPath() {
+        return "$ (binary offset " + pos + ")";
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " at offset " + pos;
+    }
+
+    private void skipTagged() {
+        int tag = readTag();
+        switch (tag) {
+            case TAG_NULL, TAG_FALSE, TAG_TRUE -> {}
+            case TAG_INT -> readVarlong();
+            case TAG_DOUBLE -> skip(8);
+            case TAG_STRING, TAG_NUMBER -> skip(readVarint());
+            case TAG_ARRAY -> {
+                while (peekByte() != TAG_END) skipTagged();
+                pos++;
+            }
+            case TAG_OBJECT -> {
+                for (int n; (n = readVarint()) != 0; ) {
+                    skip(n - 1);
+                    skipTagged();
+                }
+            }
+            default -> throw unexpectedTag("a value", tag);
+        }
+    }
+
+    private void push(int state) {
+        if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = state;
+    }
+
+    /* after a complete value inside an object, the next token is a name again */
+    private void afterValue() {
+        if (depth > 0 && stack[depth - 1] == OBJECT_VALUE) stack[depth - 1] = OBJECT_NAME;
+    }
+
+    private int readTag() {
+        if (depth > 0 && stack[depth - 1] == OBJECT_NAME) throw unexpected("a value");
+        return readByte();
+    }
+
+    private void expectTag(int expected) {
+        int tag = readTag();
+        if (tag != expected) throw unexpectedTag("tag " + expected, tag);
+    }
+
+    private int peekByte() {
+        if (pos >= limit) throw new IllegalStateException("Unexpected end of data at " + pos);
+        return buf[pos];
+    }
+
+    private void skip(int n) {
+        if (n < 0 || n > limit - pos) throw new IllegalStateException("Unexpected end of data at " + pos);
+        pos += n;
+    }
+
+    private long readVarlong() {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            v |= (long) (b & 0x7f) << shift;
+            if (b >= 0) return v;
+        }
+        throw new IllegalStateException("Malformed varint at " + pos);
+    }
+
+    private long readZigzag() {
+        long v = readVarlong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private double readDoubleBits() {
+        if (limit - pos < 8) throw new IllegalStateException("Unexpected end of data at " + pos);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) bits |= (long) (buf[pos++] & 0xff) << (i * 8);
+        return Double.longBitsToDouble(bits);
+    }
+
+    private String canonical(String s) {
+        return strings == null ? s : strings.canonicalize(s);
+    }
+
+    private String readUtf8(int length) {
+        if (length > limit - pos) throw new IllegalStateException("Unexpected end of data at " + pos);
+        String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return s;
+    }
+
+    private IllegalStateException unexpected(String expected) {
+        return new IllegalStateException("Expected " + expected + " but was " + peek() + " at " + getPath());
+    }
+
+    private IllegalStateException unexpectedTag(String expected, int tag) {
+        return new IllegalStateException("Expected " + expected + " but was tag " + tag + " at " + getPath());
+    }
+}
@@ -0,0 +1,237 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * {@link JsonWriter} that encodes the written values in the tagged binary
+ * form of {@link BinaryConfigCodec} into a growable byte array, so regular
+ * Gson type adapters can write binary payloads directly.
+ *
+ * <p>A value is a tag byte followed by its data: zigzag varints for integers,
+ * 8 little-endian bytes for doubles, varint-length UTF-8 for strings and
+ * decimal numbers. Arrays are tagged values closed by {@link #TAG_END};
+ * objects are members (varint name length plus one, UTF-8 name, tagged
+ * value) closed by a zero length. As with the JSON codecs, {@code null}
+ * object members are omitted.</p>
+ */
+final class BinaryJsonWriter extends JsonWriter {
+
+    static final int TAG_END = 0;
+    static final int TAG_NULL = 1;
+    static final int TAG_FALSE = 2;
+    static final int TAG_TRUE = 3;
+    static final int TAG_INT = 4;
+    static final int TAG_DOUBLE = 5;
+    static final int TAG_STRING = 6;
+    /* decimal text of a number that is not a long or a double */
+    static final int TAG_NUMBER = 7;
+    static final int TAG_ARRAY = 8;
+    static final int TAG_OBJECT = 9;
+
+    private byte[] buf = new byte[256];
+    private int size;
+    private String deferredName;
+
+    BinaryJsonWriter() {
+        super(CodecSupport.UNWRITABLE);
+        setSerializeNulls(false);
+    }
+
+    /** @return number of bytes written since the last {@link #reset()} */
+    int size() { return size; }
+
+    /** Discard everything written so far. */
+    void reset() {
+        size = 0;
+        deferredName = null;
+    }
+
+    /**
+     * Copy the written bytes to {@code out}.
+     *
+     * @param out destination stream
+     * @throws IOException if writing fails
+     */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, size);
+    }
+
+    /** Append the bytes written to {@code other}. */
+    void writeBytes(BinaryJsonWriter other) {
+        writeBytes(other.buf, other.size);
+    }
+
+    /** Append raw bytes, outside of the value structure. */
+    void writeBytes(byte[] bytes) {
+        writeBytes(bytes, bytes.length);
+    }
+
+    /** Append an unsigned varint, outside of the value structure. */
+    void writeVarint(long v) {
+        while ((v & ~0x7fL) != 0) {
+            writeByte((int) (v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        writeByte((int) v);
+    }
+
+    @Override
+    public JsonWriter beginArray() {
+        beforeValue();
+        writeByte(TAG_ARRAY);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() {
+        writeByte(TAG_END);
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginObject() {
+        beforeValue();
+        writeByte(TAG_OBJECT);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() {
+        if (deferredName != null) throw new IllegalStateException("Dangling name: " + deferredName);
+        writeVarint(0);
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) {
+        if (name == null) throw new NullPointerException("name == null");
+        if (deferredName != null) throw new IllegalStateException("Already wrote a name");
+        deferredName = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) {
+        if (value == null) return nullValue();
+        beforeValue();
+        writeByte(TAG_STRING);
+        writeString(value, 0);
+        return this;
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) {
+        throw new UnsupportedOperationException("Raw JSON cannot be written in binary form");
+    }
+
+    @Override
+    public JsonWriter nullValue() {
+        if (deferredName != null && !getSerializeNulls()) {
+            deferredName = null;
+            return this;
+        }
+        beforeValue();
+        writeByte(TAG_NULL);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        writeByte(value ? TAG_TRUE : TAG_FALSE);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) {
+        return value == null ? nullValue() : value(value.booleanValue());
+    }
+
+    /* overrides JsonWriter.value(float) where the Gson version has it */
+    public JsonWriter value(float value) {
+        return value((double) value);
+    }
+
+    @Override
+    public JsonWriter value(double value) {
+        beforeValue();
+        writeByte(TAG_DOUBLE);
+        long bits = Double.doubleToRawLongBits(value);
+        for (int i = 0; i < 8; i++) writeByte((int) (bits >>> (i * 8)));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) {
+        beforeValue();
+        writeByte(TAG_INT);
+        writeVarint((value << 1) ^ (value >> 63));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) {
+        if (value == null) return nullValue();
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return value(value.longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return value(value.doubleValue());
+        }
+        if (value instanceof BigInteger b && b.bitLength() < 64) {
+            return value(b.longValue());
+        }
+
+        String text = value.toString();
+        if (!(value instanceof BigDecimal)) {
+            try {
+                return value(Long.parseLong(text));
+            } catch (NumberFormatException ignore) {
+                // not an integer; keep the exact decimal text
+            }
+        }
+        beforeValue();
+        writeByte(TAG_NUMBER);
+        writeString(text, 0);
+        return this;
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+
+    /* writes the pending member name, if any */
+    private void beforeValue() {
+        if (deferredName != null) {
+            writeString(deferredName, 1);
+            deferredName = null;
+        }
+    }
+
+    /* varint (byte length + bias) followed by the UTF-8 bytes */
+    private void writeString(String s, int bias) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint((long) bytes.length + bias);
+        writeBytes(bytes, bytes.length);
+    }
+
+    private void writeByte(int b) {
+        if (size == buf.length) buf = Arrays.copyOf(buf, size * 2);
+        buf[size++] = (byte) b;
+    }
+
+    private void writeBytes(byte[] bytes, int length) {
+        if (size + length > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + length));
+        System.arraycopy(bytes, 0, buf, size, length);
+        size += length;
+    }
+}
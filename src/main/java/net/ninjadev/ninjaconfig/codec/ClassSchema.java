@@ -0,0 +1,78 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.annotations.Expose;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled, immutable list of the configuration fields declared by a class.
+ *
+ * <p>The reflective scan (declared fields, modifier checks, {@link Expose} and
+ * comment lookups) runs once per class; the result is cached in a
+ * {@link ClassValue} and shared by the read and write paths of every codec.</p>
+ */
+final class ClassSchema {
+
+    private static final ClassValue<ClassSchema> CACHE = new ClassValue<>() {
+        @Override
+        protected ClassSchema computeValue(Class<?> type) {
+            return new ClassSchema(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final List<FieldSchema> fields;
+    private final Map<String, FieldSchema> byName;
+
+    private ClassSchema(Class<?> type) {
+        this.type = type;
+
+        List<FieldSchema> list = new ArrayList<>();
+        Map<String, FieldSchema> names = new HashMap<>();
+        for (Field f : type.getDeclaredFields()) {
+            if (isNotConfigField(f)) continue;
+            FieldSchema fs = new FieldSchema(list.size(), f);
+            list.add(fs);
+            names.put(fs.name(), fs);
+        }
+
+        this.fields = Collections.unmodifiableList(list);
+        this.byName = Collections.unmodifiableMap(names);
+    }
+
+    /**
+     * Get the cached schema for {@code type}, compiling it on first use.
+     *
+     * @param type class to describe
+     * @return the schema for the class
+     */
+    static ClassSchema of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /** @return the described class */
+    Class<?> type() { return type; }
+
+    /** @return exposed fields in declaration order */
+    List<FieldSchema> fields() { return fields; }
+
+    /**
+     * @param name JSON member name
+     * @return the field with that name, or {@code null} when there is none
+     */
+    FieldSchema field(String name) { return byName.get(name); }
+
+    private static boolean isNotConfigField(Field f) {
+        int m = f.getModifiers();
+        return f.isSynthetic()
+                || Modifier.isStatic(m)
+                || Modifier.isTransient(m)
+                || f.getAnnotation(Expose.class) == null;
+    }
+}
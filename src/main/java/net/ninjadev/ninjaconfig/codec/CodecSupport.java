@@ -0,0 +1,574 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runtime helpers for streaming codecs in the nested-comment JSON format,
+ * shared by {@link GsonNestedCommentCodec} and by the codecs generated for
+ * classes annotated with
+ * {@link net.ninjadev.ninjaconfig.annotation.GenerateCodec}.
+ *
+ * <p>Generated codecs are plain Java classes named after the config class
+ * with the {@value #GENERATED_SUFFIX} suffix (nested class names are joined
+ * with {@code _}) and are located with {@link #findGenerated(Class)}.</p>
+ */
+public final class CodecSupport {
+
+    /** Suffix appended to the (flattened) class name of a generated codec. */
+    public static final String GENERATED_SUFFIX = "_NinjaCodec";
+
+    /**
+     * Binds a single top-level member of a config file.
+     */
+    @FunctionalInterface
+    public interface FieldReader {
+        /**
+         * Read the value of member {@code name} from {@code in}.
+         *
+         * @param in reader positioned at the member value, with comment wrappers hidden
+         * @param name member name
+         * @return the index of the bound field, or -1 when the member is unknown and was not consumed
+         * @throws IOException if the stream is malformed
+         */
+        int read(JsonReader in, String name) throws IOException;
+    }
+
+    /**
+     * Emits a complete JSON document.
+     */
+    @FunctionalInterface
+    public interface ValueWriter {
+        /**
+         * @param out writer configured like the codec's pretty printer
+         * @throws IOException if an I/O error occurs while writing
+         */
+        void write(JsonWriter out) throws IOException;
+    }
+
+    /**
+     * Emits one field value. Generated binders call this for fields they
+     * cannot write inline, so it must be public.
+     */
+    @FunctionalInterface
+    public interface FieldWriter {
+        /**
+         * @param out writer positioned after the field name
+         * @param value the field value, possibly {@code null}
+         * @throws IOException if an I/O error occurs while writing
+         */
+        void write(JsonWriter out, Object value) throws IOException;
+    }
+
+    private static final Gson GSON = gsonBuilder().create();
+
+    /**
+     * Character stream handed to {@link JsonReader} views that decode their
+     * own input. Gson code that bypasses the public reader API fails with an
+     * {@link UnsupportedOperationException}.
+     */
+    static final Reader UNREADABLE = new Reader() {
+        @Override public int read(char[] buffer, int offset, int count) { throw new UnsupportedOperationException(); }
+        @Override public void close() {}
+    };
+
+    /** Character sink handed to {@link JsonWriter} views that encode their own output. */
+    static final Writer UNWRITABLE = new Writer() {
+        @Override public void write(char[] buffer, int offset, int count) { throw new UnsupportedOperationException(); }
+        @Override public void flush() {}
+        @Override public void close() {}
+    };
+
+    /* field adapters resolved once per class, indexed by FieldSchema.index() */
+    private static final ClassValue<TypeAdapter<?>[]> FIELD_ADAPTERS = new ClassValue<>() {
+        @Override
+        protected TypeAdapter<?>[] computeValue(Class<?> type) {
+            List<FieldSchema> fields = ClassSchema.of(type).fields();
+            TypeAdapter<?>[] adapters = new TypeAdapter<?>[fields.size()];
+            for (FieldSchema f : fields) {
+                adapters[f.index()] = GSON.getAdapter(TypeToken.get(f.genericType()));
+            }
+            return adapters;
+        }
+    };
+
+    /** How values of a runtime class are written by the recursive writers. */
+    enum Shape { SCALAR, PRIMITIVE_ARRAY, ARRAY, ITERABLE, MAP, POJO }
+
+    /**
+     * Resolved write strategy for one runtime class.
+     *
+     * @param adapter Gson adapter for {@link Shape#SCALAR} values
+     */
+    record Dispatch(Shape shape, TypeAdapter<Object> adapter) {}
+
+    /* write strategy per runtime class, so each value is dispatched with a single lookup */
+    private static final ClassValue<Dispatch> DISPATCH = new ClassValue<>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Dispatch computeValue(Class<?> type) {
+            // primitives / enums / primitive collections
+            if (Number.class.isAssignableFrom(type) || type == String.class || type == Boolean.class
+                    || type == Character.class || type.isEnum() || PrimitiveCollectionAdapterFactory.supports(type)) {
+                return new Dispatch(Shape.SCALAR, (TypeAdapter<Object>) GSON.getAdapter(type));
+            }
+            if (type.isArray()) {
+                Class<?> c = type.getComponentType();
+                boolean primitive = c == int.class || c == long.class || c == double.class || c == byte.class;
+                return new Dispatch(primitive ? Shape.PRIMITIVE_ARRAY : Shape.ARRAY, null);
+            }
+            if (Iterable.class.isAssignableFrom(type)) return new Dispatch(Shape.ITERABLE, null);
+            if (Map.class.isAssignableFrom(type)) return new Dispatch(Shape.MAP, null);
+            return new Dispatch(Shape.POJO, null);
+        }
+    };
+
+    private CodecSupport() {}
+
+    /**
+     * @return a Gson builder with the settings used by the nested-comment codecs
+     */
+    static GsonBuilder gsonBuilder() {
+        return new GsonBuilder()
+                .excludeFieldsWithoutExposeAnnotation()
+                .registerTypeAdapterFactory(new MapAdapterFactory())
+                .registerTypeAdapterFactory(new PrimitiveArrayAdapterFactory())
+                .registerTypeAdapterFactory(new PrimitiveCollectionAdapterFactory())
+                .setPrettyPrinting();
+    }
+
+    /**
+     * Locate and instantiate the generated codec for {@code type}.
+     *
+     * @param type config class
+     * @return the generated codec, or {@code null} when none was generated
+     * @throws IllegalStateException if a generated codec exists but cannot be created
+     */
+    public static ConfigCodec findGenerated(Class<?> type) {
+        String pkg = type.getPackageName();
+        String simple = type.getName().substring(pkg.isEmpty() ? 0 : pkg.length() + 1).replace('$', '_');
+        String name = (pkg.isEmpty() ? "" : pkg + ".") + simple + GENERATED_SUFFIX;
+
+        final Class<?> codecType;
+        try {
+            codecType = Class.forName(name, true, type.getClassLoader());
+        } catch (ClassNotFoundException ex) {
+            return null;
+        }
+        if (!ConfigCodec.class.isAssignableFrom(codecType)) return null;
+
+        try {
+            return (ConfigCodec) codecType.getConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Cannot instantiate generated codec " + name, ex);
+        }
+    }
+
+    /**
+     * Stream the top-level members of {@code file} through {@code reader}.
+     * Wrappers are hidden, unknown members are skipped and a member that
+     * fails to bind is reported as missing without aborting the merge. The
+     * form of the file is detected once, from its first member.
+     *
+     * <p>Wrapped values are streamed. Should an object that was taken to be a
+     * wrapper turn out not to be one, the file is read again with wrapped
+     * values buffered; see {@link CommentUnwrappingReader}.</p>
+     *
+     * @param file existing file to read
+     * @param fieldCount number of fields the reader can bind
+     * @param strings table that string values and member names are canonicalized through, or {@code null}
+     * @param reader binds one member
+     * @return merge result; a malformed document is reported as a parse error
+     */
+    public static MergeResult merge(Path file, int fieldCount, StringDeduplicator strings, FieldReader reader) {
+        return merge(file, -1, fieldCount, true, strings, reader);
+    }
+
+    /**
+     * {@link #merge(Path, int, StringDeduplicator, FieldReader)} that
+     * memory-maps files of at least {@code mmapThreshold} bytes.
+     *
+     * @param flatWrappers whether top-level members of a flat file are still
+     *                     unwrapped; when false, only nested files are unwrapped
+     */
+    static MergeResult merge(Path file, long mmapThreshold, int fieldCount, boolean flatWrappers,
+                             StringDeduplicator strings, FieldReader reader) {
+        MergeResult result = merge(file, mmapThreshold, fieldCount, flatWrappers, true, strings, reader);
+        return result != null ? result : merge(file, mmapThreshold, fieldCount, flatWrappers, false, strings, reader);
+    }
+
+    /* null when a streamed wrapper turned out not to be one */
+    private static MergeResult merge(Path file, long mmapThreshold, int fieldCount, boolean flatWrappers,
+                                     boolean streamWrappers, StringDeduplicator strings, FieldReader reader) {
+        boolean[] seen = new boolean[fieldCount];
+        boolean missing = false;
+        MergeResult.Format format = MergeResult.Format.UNKNOWN;
+
+        try (Reader r = MappedFileReader.open(file, mmapThreshold)) {
+            JsonReader raw = new JsonReader(r);
+            raw.setLenient(true);
+            CommentUnwrappingReader in = new CommentUnwrappingReader(raw, flatWrappers, streamWrappers, strings);
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (format == MergeResult.Format.UNKNOWN) format = in.detectFormat();
+                try {
+                    int index = reader.read(in, name);
+                    if (index < 0) {
+                        in.skipValue();
+                    } else {
+                        seen[index] = true;
+                    }
+                } catch (RuntimeException ex) {
+                    if (in.speculating()) return null;
+                    missing = true;
+                    in.recoverTo(1);
+                }
+            }
+            in.endObject();
+
+            if (in.peek() != JsonToken.END_DOCUMENT) {
+                return new MergeResult(true, true, true);
+            }
+        } catch (Exception ex) {
+            return new MergeResult(true, true, true);
+        }
+
+        for (boolean s : seen) {
+            if (!s) missing = true;
+        }
+        return new MergeResult(true, missing, false, format);
+    }
+
+    /**
+     * Write a document to {@code file} with the pretty-printing settings of
+     * the nested-comment codecs.
+     *
+     * @param file destination file
+     * @param writer emits the document
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public static void write(Path file, ValueWriter writer) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out, writer);
+        }
+    }
+
+    /**
+     * Write a document as UTF-8 to {@code out}, which is flushed but not closed.
+     *
+     * @param out destination stream
+     * @param writer emits the document
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public static void write(OutputStream out, ValueWriter writer) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonWriter json = GSON.newJsonWriter(w);
+        json.setLenient(true);
+        writer.write(json);
+        json.flush();
+    }
+
+    /**
+     * Escape {@code s} once into the JSON string literal {@link #write}
+     * would produce for it, so that it can be emitted repeatedly with
+     * {@link JsonWriter#jsonValue(String)}.
+     *
+     * @param s string to escape
+     * @return quoted and escaped JSON string
+     */
+    public static String jsonString(String s) {
+        StringWriter w = new StringWriter();
+        try {
+            JsonWriter json = GSON.newJsonWriter(w);
+            json.setLenient(true);
+            json.value(s);
+            json.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return w.toString();
+    }
+
+    /**
+     * Resolve a Gson adapter for a type the generator has no dedicated code for.
+     *
+     * @param type type to (de)serialize
+     * @param <T> value type
+     * @return adapter from a Gson instance configured like the codecs
+     */
+    public static <T> TypeAdapter<T> adapter(TypeToken<T> type) {
+        return GSON.getAdapter(type);
+    }
+
+    /** Read a {@code boolean} the way Gson does, accepting string booleans. */
+    public static boolean readBoolean(JsonReader in) throws IOException {
+        return in.peek() == JsonToken.STRING ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean();
+    }
+
+    /**
+     * Read a {@code short}. Values outside the range of {@code short} fail
+     * as with Gson's adapter, which also accepts them up to 65535.
+     */
+    public static short readShortValue(JsonReader in) throws IOException {
+        int value = in.nextInt();
+        if (value > 65535 || value < Short.MIN_VALUE) {
+            throw new JsonSyntaxException("Lossy conversion from " + value + " to short; at path " + in.getPath());
+        }
+        return (short) value;
+    }
+
+    /**
+     * Read a {@code byte}. Values outside the range of {@code byte} fail as
+     * with Gson's adapter, which also accepts them up to 255.
+     */
+    public static byte readByteValue(JsonReader in) throws IOException {
+        int value = in.nextInt();
+        if (value > 255 || value < Byte.MIN_VALUE) {
+            throw new JsonSyntaxException("Lossy conversion from " + value + " to byte; at path " + in.getPath());
+        }
+        return (byte) value;
+    }
+
+    /** Read a single-character string into a {@code char}. */
+    public static char readChar(JsonReader in) throws IOException {
+        String s = in.nextString();
+        if (s.length() != 1) {
+            throw new JsonSyntaxException("Expecting character, got: " + s + " at " + in.getPath());
+        }
+        return s.charAt(0);
+    }
+
+    /** Read a nullable {@link String}, accepting booleans as Gson does. */
+    public static String readString(JsonReader in) throws IOException {
+        JsonToken t = in.peek();
+        if (t == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return t == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString();
+    }
+
+    /**
+     * @param type config or nested POJO class
+     * @return Gson adapters for the exposed fields of {@code type}, indexed by {@link FieldSchema#index()}
+     */
+    static TypeAdapter<?>[] fieldAdapters(Class<?> type) {
+        return FIELD_ADAPTERS.get(type);
+    }
+
+    /** @return how values of the runtime class {@code type} are written */
+    static Dispatch dispatch(Class<?> type) {
+        return DISPATCH.get(type);
+    }
+
+    /**
+     * Canonicalize the string values and member names of a parsed tree
+     * through {@code strings}. Arrays are rewritten in place; objects are
+     * copied, since the names of their members cannot be replaced.
+     *
+     * @param el tree to canonicalize
+     * @param strings table to canonicalize through, or {@code null} to return {@code el} as it is
+     * @return the canonicalized tree
+     */
+    static JsonElement canonicalize(JsonElement el, StringDeduplicator strings) {
+        if (strings == null) return el;
+
+        if (el instanceof JsonObject o) {
+            JsonObject copy = new JsonObject();
+            for (var e : o.entrySet()) copy.add(strings.canonicalizeName(e.getKey()), canonicalize(e.getValue(), strings));
+            return copy;
+        }
+
+        if (el instanceof JsonArray a) {
+            for (int i = 0, n = a.size(); i < n; i++) {
+                JsonElement v = a.get(i);
+                JsonElement canonical = canonicalize(v, strings);
+                if (canonical != v) a.set(i, canonical);
+            }
+            return a;
+        }
+
+        if (el instanceof JsonPrimitive p && p.isString()) {
+            String s = p.getAsString();
+            String canonical = strings.canonicalize(s);
+            return canonical == s ? p : new JsonPrimitive(canonical);
+        }
+        return el;
+    }
+
+    /**
+     * Convert a map key to a member name as {@link MapAdapterFactory} does:
+     * strings as they are, other keys through their Gson adapter.
+     */
+    @SuppressWarnings("unchecked")
+    static String mapKey(Object key) {
+        if (key instanceof String s) return s;
+        if (key == null) return "null";
+
+        JsonElement el = ((TypeAdapter<Object>) GSON.getAdapter(key.getClass())).toJsonTree(key);
+        return el.isJsonPrimitive() ? el.getAsString() : String.valueOf(key);
+    }
+
+    /** Read a nullable {@link Integer}. */
+    public static Integer readInteger(JsonReader in) throws IOException {
+        return nextIsNull(in) ? null : in.nextInt();
+    }
+
+    /** Read a nullable {@link Long}. */
+    public static Long readLong(JsonReader in) throws IOException {
+        return nextIsNull(in) ? null : in.nextLong();
+    }
+
+    /** Read a nullable {@link Double}. */
+    public static Double readDouble(JsonReader in) throws IOException {
+        return nextIsNull(in) ? null : in.nextDouble();
+    }
+
+    /** Read a nullable {@link Float}. */
+    public static Float readFloat(JsonReader in) throws IOException {
+        return nextIsNull(in) ? null : (float) in.nextDouble();
+    }
+
+    /** Read a nullable {@link Short}. */
+    public static Short readShort(JsonReader in) throws IOException {
+        return nextIsNull(in) ? null : readShortValue(in);
+    }
+
+    /** Read a nullable {@link Byte}. */
+    public static Byte readByte(JsonReader in) throws IOException {
+        return nextIsNull(in) ? null : readByteValue(in);
+    }
+
+    /** Read a nullable {@link Boolean}. */
+    public static Boolean readBoxedBoolean(JsonReader in) throws IOException {
+        return nextIsNull(in) ? null : readBoolean(in);
+    }
+
+    /** Read a nullable {@link Character}. */
+    public static Character readCharacter(JsonReader in) throws IOException {
+        return nextIsNull(in) ? null : readChar(in);
+    }
+
+    /**
+     * Read a nullable enum constant through Gson's enum adapter, so
+     * {@link com.google.gson.annotations.SerializedName} names and their
+     * alternates are honoured. Unknown names read as {@code null}.
+     */
+    public static <E extends Enum<E>> E readEnum(JsonReader in, Class<E> type) throws IOException {
+        return type.cast(DISPATCH.get(type).adapter().read(in));
+    }
+
+    /** Write a {@code double}, rejecting NaN and infinities as Gson does. */
+    public static void writeDouble(JsonWriter out, double value) throws IOException {
+        checkValidFloatingPoint(value);
+        out.value(value);
+    }
+
+    /** Write a {@code float} using its shortest decimal form, as Gson does. */
+    public static void writeFloat(JsonWriter out, float value) throws IOException {
+        checkValidFloatingPoint(value);
+        out.jsonValue(Float.toString(value));
+    }
+
+    /** Write a nullable {@link Double}. */
+    public static void writeBoxedDouble(JsonWriter out, Double value) throws IOException {
+        if (value == null) out.nullValue();
+        else writeDouble(out, value);
+    }
+
+    /** Write a nullable {@link Float}. */
+    public static void writeBoxedFloat(JsonWriter out, Float value) throws IOException {
+        if (value == null) out.nullValue();
+        else writeFloat(out, value);
+    }
+
+    /** Write a nullable {@link Character} as a one-character string. */
+    public static void writeCharacter(JsonWriter out, Character value) throws IOException {
+        out.value(value == null ? null : String.valueOf(value.charValue()));
+    }
+
+    /** Write a nullable enum constant by its serialized name, as Gson's enum adapter does. */
+    public static void writeEnum(JsonWriter out, Enum<?> value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        DISPATCH.get(value.getDeclaringClass()).adapter().write(out, value);
+    }
+
+    static void checkValidFloatingPoint(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(value + " is not a valid double value as per JSON specification. "
+                    + "To override this behavior, use GsonBuilder.serializeSpecialFloatingPointValues() method.");
+        }
+    }
+
+    /**
+     * Bind a primitive field from an already unwrapped tree value without
+     * boxing, following the coercion rules of Gson's primitive adapters.
+     *
+     * @return false when the value cannot be assigned to the field
+     */
+    static boolean bindPrimitive(Object target, FieldSchema f, JsonElement val) {
+        if (!(val instanceof JsonPrimitive p)) return false;
+
+        FieldAccessor a = f.accessor();
+        switch (f.kind()) {
+            case INT -> {
+                if (p.isBoolean()) return false;
+                a.setInt(target, p.getAsInt());
+            }
+            case LONG -> {
+                if (p.isBoolean()) return false;
+                a.setLong(target, p.getAsLong());
+            }
+            case DOUBLE -> {
+                if (p.isBoolean()) return false;
+                a.setDouble(target, p.getAsDouble());
+            }
+            case FLOAT -> {
+                if (p.isBoolean()) return false;
+                a.setFloat(target, (float) p.getAsDouble());
+            }
+            case BOOLEAN -> {
+                if (p.isNumber()) return false;
+                a.setBoolean(target, p.isBoolean() ? p.getAsBoolean() : Boolean.parseBoolean(p.getAsString()));
+            }
+            default -> throw new AssertionError(f.kind());
+        }
+        return true;
+    }
+
+    /** Consume a {@code null} token if one is next. */
+    static boolean nextIsNull(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.NULL) return false;
+        in.nextNull();
+        return true;
+    }
+}
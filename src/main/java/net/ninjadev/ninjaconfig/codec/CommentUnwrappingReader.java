@@ -0,0 +1,536 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * {@link JsonReader} view that hides the {@code {"value": ..., "comment": ...}}
+ * wrappers written by {@link GsonNestedCommentCodec}.
+ *
+ * <p>An object is a wrapper exactly when {@link #isWrapper(JsonObject)} would
+ * say so for its tree: it has a {@code value} member and at most one other
+ * member, named {@code comment}. Whether an object qualifies is only known
+ * once the member after {@code value} has been seen, so a buffering view
+ * reads the wrapped value ahead and queues it for replay: scalars as a single
+ * token, objects and arrays as a parsed subtree. All other objects are passed
+ * through unchanged, so regular type adapters bind directly from the
+ * underlying stream.</p>
+ *
+ * <p>A streaming view does not buffer the wrappers {@link GsonNestedCommentCodec}
+ * writes. An object whose first member is {@code value}, holding an array or
+ * an object whose own first member is neither {@code value} nor
+ * {@code comment}, is taken to be a wrapper as soon as its value begins: the
+ * value streams straight from the underlying reader and a trailing
+ * {@code comment} is skipped once it ends. Should another member follow
+ * instead, the read fails while {@link #speculating()} is true and the
+ * document has to be read again with a buffering view. Scalar values, and
+ * objects that begin with {@code comment}, are still read ahead.</p>
+ *
+ * <p>Once {@link #detectFormat()} has found a flat document, deeper objects
+ * pass straight through. The values of top-level members are still checked
+ * for wrappers when the view was created with {@code flatWrappers}, so a
+ * partly hand-flattened file reads correctly; otherwise nothing is
+ * unwrapped.</p>
+ *
+ * <p>String values and member names are canonicalized through the
+ * {@link StringDeduplicator} the view was created with, if any.</p>
+ *
+ * <p>The view has no character stream of its own. Gson code that bypasses
+ * the public API fails with an {@link UnsupportedOperationException}, which
+ * the merge reports as a missing field; maps are therefore read by
+ * {@link MapAdapterFactory}.</p>
+ */
+final class CommentUnwrappingReader extends JsonReader {
+
+    private final JsonReader in;
+
+    /* tokens already consumed from {@link #in} while deciding whether an object is a wrapper */
+    private JsonToken[] replayTokens = new JsonToken[16];
+    private String[] replayValues = new String[16];
+    private int replayHead;
+    private int replayTail;
+
+    private final boolean flatWrappers;
+    private final boolean streamWrappers;
+    private final StringDeduplicator strings;
+
+    /* depths of the wrappers whose value is being streamed, innermost last */
+    private int[] wrappers = new int[8];
+    private int wrapperCount;
+
+    /* container depth of {@link #in} */
+    private int depth;
+    private boolean flat;
+
+    /**
+     * @param in underlying reader, positioned at the start of the document
+     * @param flatWrappers whether top-level members of a flat document may still be wrappers
+     * @param streamWrappers whether wrapped values are streamed rather than read ahead
+     * @param strings table to canonicalize strings through, or {@code null}
+     */
+    CommentUnwrappingReader(JsonReader in, boolean flatWrappers, boolean streamWrappers, StringDeduplicator strings) {
+        super(CodecSupport.UNREADABLE);
+        this.in = in;
+        this.flatWrappers = flatWrappers;
+        this.streamWrappers = streamWrappers;
+        this.strings = strings;
+    }
+
+    /**
+     * Detect the form of the document from the value of the first top-level
+     * member, whose name has just been read.
+     *
+     * @return {@link MergeResult.Format#NESTED} when the value is a wrapper, otherwise {@link MergeResult.Format#FLAT}
+     * @throws IOException if the underlying stream is malformed
+     */
+    MergeResult.Format detectFormat() throws IOException {
+        flat = true;
+        if (replayHead == replayTail && in.peek() == JsonToken.BEGIN_OBJECT && openObject()) {
+            flat = false;
+            return MergeResult.Format.NESTED;
+        }
+        return MergeResult.Format.FLAT;
+    }
+
+    /** @return container depth of the underlying reader, 0 at the document root */
+    int depth() { return depth; }
+
+    /**
+     * @return true while a value is streamed from an object that was taken to
+     *         be a wrapper; a read that fails meanwhile may have been given
+     *         the wrong value and has to be repeated with a buffering view
+     */
+    boolean speculating() { return wrapperCount > 0; }
+
+    /**
+     * Discard the remainder of a partially consumed value so that reading can
+     * continue with the next member of the object at {@code targetDepth}.
+     *
+     * @param targetDepth depth of the object whose member failed to bind
+     * @throws IOException if the underlying stream is malformed
+     */
+    void recoverTo(int targetDepth) throws IOException {
+        clearReplay();
+        while (wrapperCount > 0 && wrappers[wrapperCount - 1] > targetDepth) wrapperCount--;
+
+        while (depth > targetDepth) {
+            if (in.hasNext()) {
+                in.skipValue();
+            } else if (in.peek() == JsonToken.END_ARRAY) {
+                in.endArray();
+                depth--;
+            } else {
+                in.endObject();
+                depth--;
+            }
+        }
+
+        JsonToken t = in.peek();
+        if (t != JsonToken.NAME && t != JsonToken.END_OBJECT && t != JsonToken.END_ARRAY) {
+            in.skipValue();
+        }
+    }
+
+    /** @return true when {@code o} is a comment wrapper around its {@code value} member */
+    static boolean isWrapper(JsonObject o) {
+        return o.has("value") && (o.size() == 1 || (o.size() == 2 && o.has("comment")));
+    }
+
+    /**
+     * Strip comment wrappers from a freshly parsed tree. Containers are
+     * rewritten in place and only the members that were wrappers are
+     * replaced, so unwrapped subtrees (and flat files) are never copied.
+     */
+    static JsonElement unwrapComments(JsonElement el) {
+        if (el == null || el.isJsonNull()) return JsonNull.INSTANCE;
+
+        if (el.isJsonObject()) {
+            JsonObject o = el.getAsJsonObject();
+
+            if (isWrapper(o)) {
+                return unwrapComments(o.get("value"));
+            }
+            for (var e : o.entrySet()) {
+                JsonElement v = e.getValue();
+                JsonElement unwrapped = unwrapComments(v);
+                if (unwrapped != v) e.setValue(unwrapped);
+            }
+            return o;
+        }
+
+        if (el.isJsonArray()) {
+            JsonArray a = el.getAsJsonArray();
+            for (int i = 0, n = a.size(); i < n; i++) {
+                JsonElement v = a.get(i);
+                JsonElement unwrapped = unwrapComments(v);
+                if (unwrapped != v) a.set(i, unwrapped);
+            }
+            return a;
+        }
+
+        return el; // primitive
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        if (replayHead < replayTail) return replayTokens[replayHead];
+
+        JsonToken t = in.peek();
+        if (t == JsonToken.BEGIN_OBJECT && depth > 0 && (!flat || (flatWrappers && (depth == 1 || wrapperCount > 0)))) {
+            openObject();
+            return replayHead < replayTail ? replayTokens[replayHead] : in.peek();
+        }
+        return t;
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        peek();
+        if (replayHead < replayTail) {
+            takeReplayed(JsonToken.BEGIN_OBJECT);
+            return;
+        }
+        in.beginObject();
+        depth++;
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        if (replayHead < replayTail) {
+            takeReplayed(JsonToken.END_OBJECT);
+            return;
+        }
+        in.endObject();
+        depth--;
+        closeWrappers();
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        peek();
+        if (replayHead < replayTail) {
+            takeReplayed(JsonToken.BEGIN_ARRAY);
+            return;
+        }
+        in.beginArray();
+        depth++;
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        if (replayHead < replayTail) {
+            takeReplayed(JsonToken.END_ARRAY);
+            return;
+        }
+        in.endArray();
+        depth--;
+        closeWrappers();
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (replayHead < replayTail) {
+            JsonToken t = replayTokens[replayHead];
+            return t != JsonToken.END_OBJECT && t != JsonToken.END_ARRAY;
+        }
+        return in.hasNext();
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        String name = replayHead < replayTail ? takeReplayed(JsonToken.NAME) : in.nextName();
+        return strings == null ? name : strings.canonicalizeName(name);
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        JsonToken t = peek();
+        if (replayHead < replayTail) {
+            if (t == JsonToken.NUMBER) return takeReplayed(JsonToken.NUMBER);
+            return canonical(takeReplayed(JsonToken.STRING));
+        }
+        return t == JsonToken.STRING ? canonical(in.nextString()) : in.nextString();
+    }
+
+    private String canonical(String s) {
+        return strings == null ? s : strings.canonicalize(s);
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        peek();
+        if (replayHead < replayTail) return Boolean.parseBoolean(takeReplayed(JsonToken.BOOLEAN));
+        return in.nextBoolean();
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        peek();
+        if (replayHead < replayTail) {
+            takeReplayed(JsonToken.NULL);
+            return;
+        }
+        in.nextNull();
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        peek();
+        if (replayHead < replayTail) return Double.parseDouble(takeReplayedNumber());
+        return in.nextDouble();
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        peek();
+        if (replayHead < replayTail) {
+            String s = takeReplayedNumber();
+            try {
+                return Long.parseLong(s);
+            } catch (NumberFormatException ex) {
+                double d = Double.parseDouble(s);
+                long l = (long) d;
+                if (l != d || d == 0x1p63) throw ex;
+                return l;
+            }
+        }
+        return in.nextLong();
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        peek();
+        if (replayHead < replayTail) {
+            String s = takeReplayedNumber();
+            try {
+                return Integer.parseInt(s);
+            } catch (NumberFormatException ex) {
+                double d = Double.parseDouble(s);
+                int i = (int) d;
+                if (i != d) throw ex;
+                return i;
+            }
+        }
+        return in.nextInt();
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        JsonToken t = peek();
+        if (replayHead < replayTail) {
+            int open = 0;
+            do {
+                JsonToken r = replayTokens[replayHead];
+                replayValues[replayHead++] = null;
+                if (r == JsonToken.BEGIN_OBJECT || r == JsonToken.BEGIN_ARRAY) open++;
+                else if (r == JsonToken.END_OBJECT || r == JsonToken.END_ARRAY) open--;
+            } while (open > 0 && replayHead < replayTail);
+
+            if (open > 0) {
+                // the object is still open underneath: skip the members that were not read ahead
+                while (in.hasNext()) in.skipValue();
+                in.endObject();
+                depth--;
+                closeWrappers();
+            }
+            return;
+        }
+
+        if (t == JsonToken.END_OBJECT || t == JsonToken.END_ARRAY || t == JsonToken.END_DOCUMENT) {
+            throw new IllegalStateException("Expected a value but was " + t + " at path " + getPath());
+        }
+        in.skipValue();
+        closeWrappers();
+    }
+
+    @Override
+    public String getPath() {
+        return in.getPath();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " over " + in;
+    }
+
+    /**
+     * Consume the object at the head of {@link #in} far enough to decide
+     * whether it is a comment wrapper. A wrapper is consumed entirely and its
+     * value queued for replay, unless the value is streamed; any other object
+     * stays open in {@link #in}, with the members read so far queued after its
+     * {@code BEGIN_OBJECT}.
+     *
+     * @return true when the object was, or is taken to be, a wrapper
+     */
+    private boolean openObject() throws IOException {
+        in.beginObject();
+        depth++;
+
+        String first = (in.peek() == JsonToken.NAME) ? in.nextName() : null;
+        if (!"value".equals(first) && !"comment".equals(first)) {
+            replay(JsonToken.BEGIN_OBJECT, null);
+            if (first != null) replay(JsonToken.NAME, first);
+            return false;
+        }
+
+        final JsonElement firstValue;
+        JsonToken t = in.peek();
+        if (streamWrappers && first.equals("value") && t == JsonToken.BEGIN_ARRAY) {
+            pushWrapper(depth);
+            return true;
+        } else if (streamWrappers && first.equals("value") && t == JsonToken.BEGIN_OBJECT) {
+            in.beginObject();
+            depth++;
+            String name = (in.peek() == JsonToken.NAME) ? in.nextName() : null;
+            if (!"value".equals(name) && !"comment".equals(name)) {
+                pushWrapper(depth - 1);
+                replay(JsonToken.BEGIN_OBJECT, null);
+                if (name != null) replay(JsonToken.NAME, name);
+                return true;
+            }
+            // the value may be a wrapper itself, or this object a class with a field named value
+            JsonObject o = new JsonObject();
+            o.add(name, JsonParser.parseReader(in));
+            while (in.hasNext()) o.add(in.nextName(), JsonParser.parseReader(in));
+            in.endObject();
+            depth--;
+            firstValue = o;
+        } else {
+            firstValue = JsonParser.parseReader(in);
+        }
+        String second = (in.peek() == JsonToken.NAME) ? in.nextName() : null;
+        JsonElement secondValue = null;
+        boolean wrapper;
+        if (second == null) {
+            wrapper = first.equals("value");
+        } else if (second.equals(first) || (!second.equals("value") && !second.equals("comment"))) {
+            wrapper = false;
+        } else {
+            secondValue = JsonParser.parseReader(in);
+            wrapper = in.peek() == JsonToken.END_OBJECT;
+        }
+
+        if (wrapper) {
+            in.endObject();
+            depth--;
+            replay(unwrapComments(first.equals("value") ? firstValue : secondValue));
+            return true;
+        }
+
+        boolean unwrap = !flat || wrapperCount > 0;
+        replay(JsonToken.BEGIN_OBJECT, null);
+        replay(JsonToken.NAME, first);
+        replay(unwrap ? unwrapComments(firstValue) : firstValue);
+        if (second != null) {
+            replay(JsonToken.NAME, second);
+            if (secondValue != null) replay(unwrap ? unwrapComments(secondValue) : secondValue);
+        }
+        return false;
+    }
+
+    private void pushWrapper(int wrapperDepth) {
+        if (wrapperCount == wrappers.length) wrappers = Arrays.copyOf(wrappers, wrapperCount * 2);
+        wrappers[wrapperCount++] = wrapperDepth;
+    }
+
+    /**
+     * Consume the rest of every wrapper whose streamed value has just ended:
+     * an optional {@code comment} and the end of the object.
+     *
+     * @throws IllegalStateException if another member follows, so the object was not a wrapper
+     */
+    private void closeWrappers() throws IOException {
+        while (wrapperCount > 0 && depth == wrappers[wrapperCount - 1]) {
+            if (in.peek() == JsonToken.NAME) {
+                String name = in.nextName();
+                if (name.equals("comment")) {
+                    in.skipValue();
+                    if (in.peek() == JsonToken.NAME) name = in.nextName();
+                }
+                if (in.peek() != JsonToken.END_OBJECT) {
+                    throw new IllegalStateException("Expected the end of a comment wrapper but was member "
+                            + name + " at path " + getPath());
+                }
+            }
+            in.endObject();
+            depth--;
+            wrapperCount--;
+        }
+    }
+
+    /** Queue the tokens of {@code el} for replay. */
+    private void replay(JsonElement el) {
+        if (el.isJsonObject()) {
+            replay(JsonToken.BEGIN_OBJECT, null);
+            for (Map.Entry<String, JsonElement> e : el.getAsJsonObject().entrySet()) {
+                replay(JsonToken.NAME, e.getKey());
+                replay(e.getValue());
+            }
+            replay(JsonToken.END_OBJECT, null);
+        } else if (el.isJsonArray()) {
+            replay(JsonToken.BEGIN_ARRAY, null);
+            for (JsonElement v : el.getAsJsonArray()) replay(v);
+            replay(JsonToken.END_ARRAY, null);
+        } else if (el.isJsonNull()) {
+            replay(JsonToken.NULL, null);
+        } else {
+            JsonPrimitive p = el.getAsJsonPrimitive();
+            JsonToken t = p.isBoolean() ? JsonToken.BOOLEAN : p.isNumber() ? JsonToken.NUMBER : JsonToken.STRING;
+            replay(t, p.getAsString());
+        }
+    }
+
+    private void replay(JsonToken token, String value) {
+        if (replayHead == replayTail) replayHead = replayTail = 0;
+        if (replayTail == replayTokens.length) {
+            int n = replayTail * 2;
+            JsonToken[] tokens = new JsonToken[n];
+            String[] values = new String[n];
+            System.arraycopy(replayTokens, 0, tokens, 0, replayTail);
+            System.arraycopy(replayValues, 0, values, 0, replayTail);
+            replayTokens = tokens;
+            replayValues = values;
+        }
+        replayTokens[replayTail] = token;
+        replayValues[replayTail] = value;
+        replayTail++;
+    }
+
+    private void clearReplay() {
+        while (replayHead < replayTail) replayValues[replayHead++] = null;
+        replayHead = replayTail = 0;
+    }
+
+    private String takeReplayed(JsonToken expected) {
+        JsonToken t = replayTokens[replayHead];
+        if (t != expected) throw unexpected(expected, t);
+        String value = replayValues[replayHead];
+        replayValues[replayHead] = null;
+        replayHead++;
+        return value;
+    }
+
+    private String takeReplayedNumber() {
+        JsonToken t = replayTokens[replayHead];
+        return takeReplayed(t == JsonToken.STRING ? JsonToken.STRING : JsonToken.NUMBER);
+    }
+
+    private IllegalStateException unexpected(JsonToken expected, JsonToken actual) {
+        return new IllegalStateException("Expected " + expected + " but was " + actual + " at path " + getPath());
+    }
+}
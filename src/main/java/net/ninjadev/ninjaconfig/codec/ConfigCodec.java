@@ -1,6 +1,8 @@
 package net.ninjadev.ninjaconfig.codec;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 /**
@@ -22,6 +24,46 @@ public interface ConfigCodec {
      */
     <T> MergeResult mergeInto(Path file, T target) throws IOException;
 
+    /**
+     * Merge as {@link #mergeInto(Path, Object)}, canonicalizing the strings
+     * decoded from the file through {@code strings}. The default
+     * implementation ignores the table.
+     *
+     * @param file path to the file to read
+     * @param target instance to populate
+     * @param strings table to canonicalize decoded strings through, or {@code null}
+     * @param <T> concrete type of the target
+     * @return a {@link MergeResult} as for {@link #mergeInto(Path, Object)}
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    default <T> MergeResult mergeInto(Path file, T target, StringDeduplicator strings) throws IOException {
+        return mergeInto(file, target);
+    }
+
+    /**
+     * Reset {@code target} and merge the file into it again, as done on a
+     * reload. Codecs that support it keep the current value (and identity)
+     * of every field whose value in the file is unchanged since the load
+     * recorded in {@code fingerprints}, and only bind the fields that changed.
+     *
+     * <p>The default implementation runs {@code resetDefaults} and then
+     * {@link #mergeInto(Path, Object, StringDeduplicator)}.</p>
+     *
+     * @param file path to the file to read
+     * @param target instance to populate
+     * @param resetDefaults resets {@code target} to its defaults
+     * @param fingerprints fingerprints of the previous load of this file, updated in place
+     * @param strings table to canonicalize decoded strings through, or {@code null}
+     * @param <T> concrete type of the target
+     * @return a {@link MergeResult} as for {@link #mergeInto(Path, Object)}
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    default <T> MergeResult remergeInto(Path file, T target, Runnable resetDefaults,
+                                        FieldFingerprints fingerprints, StringDeduplicator strings) throws IOException {
+        resetDefaults.run();
+        return mergeInto(file, target, strings);
+    }
+
     /**
      * Write the supplied instance to the target file path. Implementations should
      * create or overwrite the file atomically when possible.
@@ -32,6 +74,62 @@ public interface ConfigCodec {
      */
     void write(Path file, Object instance) throws IOException;
 
+    /**
+     * Serialize the supplied instance to a stream, producing the same bytes as
+     * {@link #write(Path, Object)}. The stream is not closed.
+     *
+     * <p>The default implementation writes to a temporary file and copies it;
+     * codecs that can emit to a stream directly should override it.</p>
+     *
+     * @param out stream to write to
+     * @param instance configuration instance to serialize
+     * @throws IOException if an I/O error occurs while writing
+     */
+    default void write(OutputStream out, Object instance) throws IOException {
+        Path tmp = Files.createTempFile("ninjaconfig", defaultExtension() + ".tmp");
+        try {
+            write(tmp, instance);
+            Files.copy(tmp, out);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Check that this codec can read and write instances of {@code type}.
+     * Called by {@code ConfigManager} when a config is registered, so a
+     * class the codec cannot handle is reported there rather than on its
+     * first load or save. The default implementation accepts every class.
+     *
+     * @param type config class
+     * @throws IllegalStateException if the codec cannot handle {@code type}
+     */
+    default void checkSupported(Class<?> type) {}
+
+    /**
+     * Write any files that accompany {@code file}, such as comment sidecars.
+     * Called by {@code ConfigManager} after each save of {@code instance},
+     * including saves skipped because the content was unchanged. The default
+     * implementation does nothing.
+     *
+     * @param file path the instance was saved to
+     * @param instance configuration instance that was saved
+     * @throws IOException if an I/O error occurs while writing
+     */
+    default void writeCompanions(Path file, Object instance) throws IOException {}
+
+    /**
+     * The form this codec writes. A file that {@link #mergeInto} reports in
+     * another known form is rewritten by {@code ConfigManager} after it is
+     * loaded. The default is the nested-comment form of
+     * {@link GsonNestedCommentCodec}.
+     *
+     * @return the form written by {@link #write(Path, Object)}
+     */
+    default MergeResult.Format writtenFormat() {
+        return MergeResult.Format.NESTED;
+    }
+
     /**
      * @return the default file extension used by this codec (including the leading dot), e.g. ".json"
      */
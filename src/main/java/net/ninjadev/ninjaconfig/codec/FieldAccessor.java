@@ -0,0 +1,160 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import java.lang.reflect.Field;
+
+/**
+ * Reads and writes a single field through {@link Field}, turning reflective
+ * access failures into unchecked exceptions. Primitive fields are read and
+ * written without boxing by the {@code getInt}/{@code setInt} style methods.
+ *
+ * <p>Method handles held per field are no faster: they cannot be
+ * constant-folded unless held in {@code static final} fields, and since
+ * JDK 18 {@link Field} is itself implemented with method handles. Binding
+ * that has to be faster than reflection uses generated code instead
+ * ({@link HiddenClassCodec} and the
+ * {@link net.ninjadev.ninjaconfig.annotation.GenerateCodec} processor).</p>
+ *
+ * <p>Fields that cannot be written (record components, for example) can
+ * still be read; writing one fails with an {@link IllegalStateException}.</p>
+ */
+final class FieldAccessor {
+    private final Field field;
+
+    private FieldAccessor(Field field) {
+        this.field = field;
+    }
+
+    /**
+     * Bind an accessor to {@code field}, which must already be accessible to
+     * this module, either because its package is open or because
+     * {@link Field#setAccessible(boolean)} succeeded.
+     *
+     * @param field field to bind
+     * @return accessor for the field
+     */
+    static FieldAccessor of(Field field) {
+        return new FieldAccessor(field);
+    }
+
+    /**
+     * @param instance owner of the field
+     * @return the current value (boxed for primitives)
+     */
+    Object get(Object instance) {
+        try {
+            return field.get(instance);
+        } catch (IllegalAccessException ex) {
+            throw cannotRead(ex);
+        }
+    }
+
+    /**
+     * @param instance owner of the field
+     * @param value new value (boxed for primitives)
+     */
+    void set(Object instance, Object value) {
+        try {
+            field.set(instance, value);
+        } catch (IllegalAccessException ex) {
+            throw cannotWrite(ex);
+        }
+    }
+
+    /** Unboxed read of a {@code int} field. */
+    int getInt(Object instance) {
+        try {
+            return field.getInt(instance);
+        } catch (IllegalAccessException ex) {
+            throw cannotRead(ex);
+        }
+    }
+
+    /** Unboxed write of a {@code int} field. */
+    void setInt(Object instance, int value) {
+        try {
+            field.setInt(instance, value);
+        } catch (IllegalAccessException ex) {
+            throw cannotWrite(ex);
+        }
+    }
+
+    /** Unboxed read of a {@code long} field. */
+    long getLong(Object instance) {
+        try {
+            return field.getLong(instance);
+        } catch (IllegalAccessException ex) {
+            throw cannotRead(ex);
+        }
+    }
+
+    /** Unboxed write of a {@code long} field. */
+    void setLong(Object instance, long value) {
+        try {
+            field.setLong(instance, value);
+        } catch (IllegalAccessException ex) {
+            throw cannotWrite(ex);
+        }
+    }
+
+    /** Unboxed read of a {@code double} field. */
+    double getDouble(Object instance) {
+        try {
+            return field.getDouble(instance);
+        } catch (IllegalAccessException ex) {
+            throw cannotRead(ex);
+        }
+    }
+
+    /** Unboxed write of a {@code double} field. */
+    void setDouble(Object instance, double value) {
+        try {
+            field.setDouble(instance, value);
+        } catch (IllegalAccessException ex) {
+            throw cannotWrite(ex);
+        }
+    }
+
+    /** Unboxed read of a {@code float} field. */
+    float getFloat(Object instance) {
+        try {
+            return field.getFloat(instance);
+        } catch (IllegalAccessException ex) {
+            throw cannotRead(ex);
+        }
+    }
+
+    /** Unboxed write of a {@code float} field. */
+    void setFloat(Object instance, float value) {
+        try {
+            field.setFloat(instance, value);
+        } catch (IllegalAccessException ex) {
+            throw cannotWrite(ex);
+        }
+    }
+
+    /** Unboxed read of a {@code boolean} field. */
+    boolean getBoolean(Object instance) {
+        try {
+            return field.getBoolean(instance);
+        } catch (IllegalAccessException ex) {
+            throw cannotRead(ex);
+        }
+    }
+
+    /** Unboxed write of a {@code boolean} field. */
+    void setBoolean(Object instance, boolean value) {
+        try {
+            field.setBoolean(instance, value);
+        } catch (IllegalAccessException ex) {
+            throw cannotWrite(ex);
+        }
+    }
+
+    private IllegalStateException cannotRead(IllegalAccessException ex) {
+        return new IllegalStateException("Cannot access field " + field, ex);
+    }
+
+    private IllegalStateException cannotWrite(IllegalAccessException ex) {
+        return new IllegalStateException("Cannot write field " + field, ex);
+    }
+}
@@ -0,0 +1,33 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Moves the exposed fields of one class between an instance and a JSON
+ * stream on the streaming read/write paths of {@link GsonNestedCommentCodec}.
+ */
+interface FieldBinder {
+
+    /**
+     * Read the value of field {@code f} from {@code in} and assign it to {@code target}.
+     *
+     * @param in reader positioned at the (unwrapped) member value
+     * @param target instance to populate
+     * @param f field of the bound class
+     * @throws IOException if the stream is malformed
+     */
+    void read(JsonReader in, Object target, FieldSchema f) throws IOException;
+
+    /**
+     * Write {@code instance} as an object with a {@code {value, comment}}
+     * wrapper for each exposed field.
+     *
+     * @param out destination writer
+     * @param instance instance of the bound class
+     * @throws IOException if an I/O error occurs while writing
+     */
+    void writeFields(JsonWriter out, Object instance) throws IOException;
+}
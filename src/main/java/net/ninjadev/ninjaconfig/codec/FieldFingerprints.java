@@ -0,0 +1,49 @@
+package net.ninjadev.ninjaconfig.codec;
+
+/**
+ * Per-field fingerprints of the values read by the previous load of one
+ * config file, used by {@link ConfigCodec#remergeInto} to leave fields whose
+ * value did not change untouched.
+ *
+ * <p>The contents are maintained by the codec; callers keep one instance per
+ * file and {@link #clear()} it whenever the in-memory config may have drifted
+ * from what was read.</p>
+ */
+public final class FieldFingerprints {
+    private Class<?> type;
+    private long[] hashes;
+    private boolean[] recorded;
+
+    /** Create an empty set of fingerprints; the next remerge binds every field. */
+    public FieldFingerprints() {}
+
+    /** Forget all fingerprints so the next remerge binds every field. */
+    public void clear() {
+        type = null;
+        hashes = null;
+        recorded = null;
+    }
+
+    /**
+     * @param type config class being merged
+     * @param index field index
+     * @param hash fingerprint of the field's current value in the file
+     * @return true when the previous load of the same class read the same value for this field
+     */
+    boolean matches(Class<?> type, int index, long hash) {
+        return this.type == type && recorded[index] && hashes[index] == hash;
+    }
+
+    /**
+     * Replace the recorded fingerprints.
+     *
+     * @param type config class that was merged
+     * @param hashes fingerprint per field index
+     * @param recorded whether each field was bound from the file
+     */
+    void record(Class<?> type, long[] hashes, boolean[] recorded) {
+        this.type = type;
+        this.hashes = hashes;
+        this.recorded = recorded;
+    }
+}
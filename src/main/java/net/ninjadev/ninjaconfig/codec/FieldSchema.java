@@ -0,0 +1,106 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import net.ninjadev.ninjaconfig.annotation.Comment;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+
+/**
+ * Immutable descriptor of a single exposed configuration field.
+ *
+ * <p>Instances are created once per class by {@link ClassSchema} and carry
+ * everything the codecs need at read/write time: the bound {@link FieldAccessor},
+ * its generic type, the pre-resolved (and pre-escaped) comment and a few type flags.</p>
+ */
+final class FieldSchema {
+
+    /** Value shape of a field, used to pick boxing-free read/write paths. */
+    enum Kind { OBJECT, INT, LONG, DOUBLE, FLOAT, BOOLEAN }
+
+    private final int index;
+    private final String name;
+    private final FieldAccessor accessor;
+    private final Type genericType;
+    private final Class<?> rawType;
+    private final String comment;
+    private final String commentJson;
+    private final boolean primitive;
+    private final boolean finalField;
+    private final Kind kind;
+
+    FieldSchema(int index, Field field) {
+        field.setAccessible(true);
+        this.index = index;
+        this.name = field.getName();
+        this.accessor = FieldAccessor.of(field);
+        this.genericType = field.getGenericType();
+        this.rawType = field.getType();
+        this.primitive = rawType.isPrimitive();
+        this.finalField = Modifier.isFinal(field.getModifiers());
+        this.kind = kindOf(rawType);
+
+        Comment c = field.getAnnotation(Comment.class);
+        this.comment = (c != null && !c.value().isBlank()) ? c.value() : null;
+        this.commentJson = (comment != null) ? CodecSupport.jsonString(comment) : null;
+    }
+
+    /** @return position of this field in its {@link ClassSchema} */
+    int index() { return index; }
+
+    /** @return the JSON member name of this field */
+    String name() { return name; }
+
+    /** @return the generic type used to (de)serialize the value */
+    Type genericType() { return genericType; }
+
+    /** @return the erased type of the field */
+    Class<?> rawType() { return rawType; }
+
+    /** @return the comment text, or {@code null} when the field has no non-blank comment */
+    String comment() { return comment; }
+
+    /** @return the comment as an escaped JSON string literal for {@code JsonWriter.jsonValue}, or {@code null} */
+    String commentJson() { return commentJson; }
+
+    /** @return true when the field is declared with a primitive type */
+    boolean isPrimitive() { return primitive; }
+
+    /** @return true when the field is declared {@code final} */
+    boolean isFinal() { return finalField; }
+
+    /** @return the value shape; anything but {@link Kind#OBJECT} supports the unboxed accessors */
+    Kind kind() { return kind; }
+
+    /** @return the bound accessor, for unboxed access to primitive fields */
+    FieldAccessor accessor() { return accessor; }
+
+    /**
+     * Read the value of this field from {@code instance}.
+     *
+     * @param instance owner of the field
+     * @return the current value (boxed for primitives)
+     */
+    Object get(Object instance) {
+        return accessor.get(instance);
+    }
+
+    /**
+     * Assign {@code value} to this field on {@code instance}.
+     *
+     * @param instance owner of the field
+     * @param value new value (boxed for primitives)
+     */
+    void set(Object instance, Object value) {
+        accessor.set(instance, value);
+    }
+
+    private static Kind kindOf(Class<?> type) {
+        if (type == int.class) return Kind.INT;
+        if (type == long.class) return Kind.LONG;
+        if (type == double.class) return Kind.DOUBLE;
+        if (type == float.class) return Kind.FLOAT;
+        if (type == boolean.class) return Kind.BOOLEAN;
+        return Kind.OBJECT;
+    }
+}
@@ -1,30 +1,170 @@
 package net.ninjadev.ninjaconfig.codec;
 
 import com.google.gson.*;
-import com.google.gson.annotations.Expose;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import net.ninjadev.ninjaconfig.annotation.Comment;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * JSON codec that stores each exposed field as a nested object containing the
  * value and an optional comment produced from the {@link Comment} annotation.
  * Read path accepts either the nested form above or a flat value.
  * Write path is recursive, so nested objects/lists/maps also get comments.
+ * Field lookups go through the cached {@link ClassSchema} of each class.
+ *
+ * <p>Use {@link Builder} to enable optional modes such as streaming reads.</p>
  */
 public final class GsonNestedCommentCodec implements ConfigCodec {
 
-    private final Gson gson = new GsonBuilder()
-            .excludeFieldsWithoutExposeAnnotation()
-            .setPrettyPrinting()
-            .create();
+    /**
+     * Builder for creating a {@link GsonNestedCommentCodec} with custom settings.
+     */
+    public static final class Builder {
+        private boolean streamingRead;
+        private boolean streamingWrite;
+        private boolean hiddenClasses;
+        private long mmapThreshold = -1;
+        private long parallelThreshold = -1;
+        private boolean generatedCodecs;
+
+        /**
+         * Read files with a streaming parser that binds values straight into
+         * the target's fields instead of building and unwrapping a JSON tree
+         * of the whole file. Wrappers are recognised exactly as on the tree
+         * path; only the value inside a wrapper is parsed ahead, one field at
+         * a time. When a file is malformed
+         * part-way through, fields bound before the error keep their values.
+         * Reloads then bind every field again instead of keeping the ones
+         * whose value is unchanged; see {@link GsonNestedCommentCodec#remergeInto}.
+         */
+        public Builder streamingRead(boolean streamingRead) { this.streamingRead = streamingRead; return this; }
+
+        /**
+         * Write files by emitting straight to a {@link JsonWriter} instead of
+         * building a {@link JsonObject} tree first. The output is identical
+         * to the tree-based write.
+         */
+        public Builder streamingWrite(boolean streamingWrite) { this.streamingWrite = streamingWrite; return this; }
+
+        /**
+         * Bind fields on the streaming paths through a hidden class generated
+         * per config class, falling back to reflection for classes that
+         * cannot be bound that way. Used by {@link HiddenClassCodec}.
+         */
+        Builder hiddenClasses(boolean hiddenClasses) { this.hiddenClasses = hiddenClasses; return this; }
+
+        /**
+         * Read files of at least {@code bytes} bytes through a memory mapping,
+         * decoding UTF-8 straight from the mapped buffer. A negative value
+         * (the default) disables mapping. Mapping only pays off from about
+         * 64 KiB; smaller files read faster through a buffered reader. On
+         * Windows a mapped file cannot be replaced until the mapping is
+         * garbage collected, which can make the save that follows a load with
+         * missing keys fail.
+         */
+        public Builder mmapThreshold(long bytes) { this.mmapThreshold = bytes; return this; }
+
+        /**
+         * Read files of at least {@code bytes} bytes by parsing the tree and
+         * converting the top-level members on the common {@link ForkJoinPool}
+         * in parallel; the values are assigned to the target only after every
+         * member has been converted. This uses the tree read path even when
+         * streaming reads are enabled. Reloads of such files bind every
+         * field again, as with streaming reads. A negative value (the
+         * default) disables it.
+         */
+        public Builder parallelThreshold(long bytes) { this.parallelThreshold = bytes; return this; }
+
+        /**
+         * Read and write classes annotated with
+         * {@link net.ninjadev.ninjaconfig.annotation.GenerateCodec} through
+         * their generated codec; see {@link CodecSupport#findGenerated(Class)}.
+         * Generated codecs always read and write by streaming, so the other
+         * settings of this builder do not apply to those classes and their
+         * reloads bind every field again. Off by default.
+         */
+        public Builder generatedCodecs(boolean generatedCodecs) { this.generatedCodecs = generatedCodecs; return this; }
+
+        /**
+         * Build the codec.
+         *
+         * @return configured codec
+         */
+        public GsonNestedCommentCodec build() {
+            return new GsonNestedCommentCodec(this);
+        }
+    }
+
+    /* marks a member that failed to convert in bindParallel */
+    private static final Object BIND_FAILED = new Object();
+
+    private final Gson gson = CodecSupport.gsonBuilder().create();
+
+    /* writes non-primitive field values for generated binders */
+    private final CodecSupport.FieldWriter valueWriter = this::writeValue;
+
+    /* streaming field binders, generated or reflective depending on the settings */
+    private final ClassValue<FieldBinder> binders = new ClassValue<>() {
+        @Override
+        protected FieldBinder computeValue(Class<?> type) {
+            ClassSchema schema = ClassSchema.of(type);
+            if (hiddenClasses) {
+                FieldBinder generated = HiddenClassBinder.define(schema, CodecSupport.fieldAdapters(type), valueWriter);
+                if (generated != null) return generated;
+            }
+            return new ReflectiveBinder(schema);
+        }
+    };
+
+    /* the generated codec of each class, or this codec when none was generated */
+    private final ClassValue<ConfigCodec> generated = new ClassValue<>() {
+        @Override
+        protected ConfigCodec computeValue(Class<?> type) {
+            ConfigCodec codec = CodecSupport.findGenerated(type);
+            return (codec != null) ? codec : GsonNestedCommentCodec.this;
+        }
+    };
+
+    private final boolean streamingRead;
+    private final boolean streamingWrite;
+    private final boolean hiddenClasses;
+    private final long mmapThreshold;
+    private final long parallelThreshold;
+    private final boolean generatedCodecs;
+
+    /** Create a codec with default settings (tree-based reads and writes). */
+    public GsonNestedCommentCodec() {
+        this(new Builder());
+    }
+
+    private GsonNestedCommentCodec(Builder builder) {
+        this.streamingRead = builder.streamingRead;
+        this.streamingWrite = builder.streamingWrite;
+        this.hiddenClasses = builder.hiddenClasses;
+        this.mmapThreshold = builder.mmapThreshold;
+        this.parallelThreshold = builder.parallelThreshold;
+        this.generatedCodecs = builder.generatedCodecs;
+    }
+
+    /** @return the codec that reads and writes {@code type}: its generated codec if enabled, otherwise this one */
+    private ConfigCodec codecFor(Class<?> type) {
+        return generatedCodecs ? generated.get(type) : this;
+    }
 
     /**
      * Merge the JSON file at {@code file} into {@code target}.
@@ -33,44 +173,258 @@ public final class GsonNestedCommentCodec implements ConfigCodec {
      * @param target target instance to populate
      * @param <T> concrete type of the target
      * @return result indicating whether the file existed and if there were missing keys or parse errors
+     * @throws IOException if the generated codec of the target's class fails to read the file
+     */
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target) throws IOException {
+        return mergeInto(file, target, null);
+    }
+
+    /**
+     * Merge the JSON file at {@code file} into {@code target}, canonicalizing
+     * decoded strings through {@code strings}.
+     *
+     * @param file file to read
+     * @param target target instance to populate
+     * @param strings table to canonicalize decoded strings through, or {@code null}
+     * @param <T> concrete type of the target
+     * @return result as for {@link #mergeInto(Path, Object)}
+     * @throws IOException as for {@link #mergeInto(Path, Object)}
+     */
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target, StringDeduplicator strings) throws IOException {
+        ConfigCodec codec = codecFor(target.getClass());
+        if (codec != this) return codec.mergeInto(file, target, strings);
+
+        if (!Files.exists(file)) {
+            return new MergeResult(false, true, false);
+        }
+
+        if (parallelThreshold >= 0 && sizeOf(file) >= parallelThreshold) {
+            return mergeTree(file, target, true, strings);
+        }
+        return streamingRead ? mergeStreaming(file, target, strings) : mergeTree(file, target, false, strings);
+    }
+
+    /**
+     * Reload {@code target} from {@code file}, keeping the current value of
+     * every field whose (unwrapped) value in the file has the same
+     * fingerprint as on the previous load. Fingerprints are taken on the tree
+     * read path, so this is only done when the file would be read through
+     * it; with streaming reads, or for a file at the parallel threshold, the
+     * fingerprints are dropped and the file is merged through
+     * {@link #mergeInto(Path, Object, StringDeduplicator)} after a reset.
+     *
+     * @param file file to read
+     * @param target target instance to reset and populate
+     * @param resetDefaults resets {@code target} to its defaults
+     * @param fingerprints fingerprints of the previous load, updated in place
+     * @param strings table to canonicalize decoded strings through, or {@code null}
+     * @param <T> concrete type of the target
+     * @return result as for {@link #mergeInto(Path, Object)}
+     * @throws IOException as for {@link #mergeInto(Path, Object)}
      */
     @Override
-    public <T> MergeResult mergeInto(Path file, T target) {
+    public <T> MergeResult remergeInto(Path file, T target, Runnable resetDefaults,
+                                       FieldFingerprints fingerprints, StringDeduplicator strings) throws IOException {
+        ConfigCodec codec = codecFor(target.getClass());
+        if (codec != this) return codec.remergeInto(file, target, resetDefaults, fingerprints, strings);
+
         if (!Files.exists(file)) {
+            fingerprints.clear();
+            resetDefaults.run();
             return new MergeResult(false, true, false);
         }
 
+        if (streamingRead || (parallelThreshold >= 0 && sizeOf(file) >= parallelThreshold)) {
+            fingerprints.clear();
+            resetDefaults.run();
+            return mergeInto(file, target, strings);
+        }
+
         final JsonObject source;
-        try (Reader r = Files.newBufferedReader(file)) {
+        try (Reader r = MappedFileReader.open(file, mmapThreshold)) {
             source = JsonParser.parseReader(r).getAsJsonObject();
         } catch (Exception ex) {
+            fingerprints.clear();
+            resetDefaults.run();
             return new MergeResult(true, true, true);
         }
 
+        Class<?> type = target.getClass();
+        ClassSchema schema = ClassSchema.of(type);
+        List<FieldSchema> fields = schema.fields();
+        TypeAdapter<?>[] adapters = CodecSupport.fieldAdapters(type);
+
+        MergeResult.Format format = detectFormat(source);
+        long[] hashes = new long[fields.size()];
+        boolean[] recorded = new boolean[fields.size()];
+        JsonElement[] values = new JsonElement[fields.size()];
+        Object[] kept = new Object[fields.size()];
+        boolean[] keep = new boolean[fields.size()];
+
+        for (FieldSchema f : fields) {
+            int i = f.index();
+            JsonElement raw = source.get(f.name());
+            if (raw == null) continue;
+            values[i] = unwrap(raw, format);
+            hashes[i] = fingerprint(values[i]);
+            if (fingerprints.matches(type, i, hashes[i])) {
+                kept[i] = f.get(target);
+                keep[i] = true;
+            }
+        }
+
+        resetDefaults.run();
+
         boolean missing = false;
+        for (FieldSchema f : fields) {
+            int i = f.index();
+            if (values[i] == null) {
+                missing = true;
+                continue;
+            }
+
+            try {
+                if (keep[i]) {
+                    f.set(target, kept[i]);
+                } else if (f.kind() != FieldSchema.Kind.OBJECT) {
+                    if (!CodecSupport.bindPrimitive(target, f, values[i])) {
+                        missing = true;
+                        continue;
+                    }
+                } else {
+                    f.set(target, adapters[i].fromJsonTree(CodecSupport.canonicalize(values[i], strings)));
+                }
+                recorded[i] = true;
+            } catch (Exception ignore) {
+                missing = true;
+            }
+        }
+
+        fingerprints.record(type, hashes, recorded);
+        return new MergeResult(true, missing, false, format);
+    }
+
+    /** 64-bit FNV-1a hash over the structure and text of an unwrapped tree. */
+    private static long fingerprint(JsonElement el) {
+        return fingerprint(el, 0xcbf29ce484222325L);
+    }
+
+    private static long fingerprint(JsonElement el, long h) {
+        if (el == null || el.isJsonNull()) return mix(h, 'n');
 
-        for (Field f : target.getClass().getDeclaredFields()) {
-            if (isNotConfigField(f)) continue;
+        if (el instanceof JsonObject o) {
+            h = mix(h, '{');
+            for (var e : o.entrySet()) {
+                h = mix(h, e.getKey());
+                h = fingerprint(e.getValue(), mix(h, ':'));
+            }
+            return mix(h, '}');
+        }
+
+        if (el instanceof JsonArray a) {
+            h = mix(h, '[');
+            for (JsonElement e : a) h = fingerprint(e, h);
+            return mix(h, ']');
+        }
 
-            final String name = f.getName();
+        JsonPrimitive p = el.getAsJsonPrimitive();
+        h = mix(h, p.isString() ? '"' : p.isBoolean() ? 'b' : '#');
+        return mix(h, p.getAsString());
+    }
+
+    private static long mix(long h, String s) {
+        for (int i = 0; i < s.length(); i++) h = mix(h, s.charAt(i));
+        return mix(h, 0xFFFF);
+    }
+
+    private static long mix(long h, int c) {
+        return (h ^ c) * 0x100000001b3L;
+    }
+
+    private MergeResult mergeTree(Path file, Object target, boolean parallel, StringDeduplicator strings) {
+        final JsonObject source;
+        try (Reader r = MappedFileReader.open(file, mmapThreshold)) {
+            source = JsonParser.parseReader(r).getAsJsonObject();
+        } catch (Exception ex) {
+            return new MergeResult(true, true, true);
+        }
+
+        boolean missing = false;
+        MergeResult.Format format = detectFormat(source);
+        ClassSchema schema = ClassSchema.of(target.getClass());
+        TypeAdapter<?>[] adapters = CodecSupport.fieldAdapters(target.getClass());
+        Object[] bound = parallel ? bindParallel(source, format, schema, adapters, strings) : null;
+
+        for (FieldSchema f : schema.fields()) {
+            final String name = f.name();
             if (!source.has(name)) {
                 missing = true;
                 continue;
             }
 
-            JsonElement raw = source.get(name);
-            JsonElement val = unwrapComments(raw);
-
             try {
-                f.setAccessible(true);
-                Object parsed = gson.fromJson(val, f.getGenericType());
+                if (f.kind() != FieldSchema.Kind.OBJECT) {
+                    if (!CodecSupport.bindPrimitive(target, f, unwrap(source.get(name), format))) missing = true;
+                    continue;
+                }
+                Object parsed = (bound != null) ? bound[f.index()] : adapters[f.index()].fromJsonTree(unwrap(source.get(name), format, strings));
+                if (parsed == BIND_FAILED) {
+                    missing = true;
+                    continue;
+                }
                 f.set(target, parsed);
             } catch (Exception ignore) {
                 missing = true;
             }
         }
 
-        return new MergeResult(true, missing, false);
+        return new MergeResult(true, missing, false, format);
+    }
+
+    /**
+     * Convert the non-primitive members of {@code source} to field values on
+     * the common {@link ForkJoinPool}, one task per member. Nothing is
+     * assigned to the target here; the caller publishes the values once every
+     * task has completed.
+     *
+     * @return values indexed by {@link FieldSchema#index()}; {@link #BIND_FAILED} for members that did not convert
+     */
+    private Object[] bindParallel(JsonObject source, MergeResult.Format format, ClassSchema schema,
+                                  TypeAdapter<?>[] adapters, StringDeduplicator strings) {
+        Object[] values = new Object[adapters.length];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+        for (FieldSchema f : schema.fields()) {
+            JsonElement raw = source.get(f.name());
+            if (raw == null || f.kind() != FieldSchema.Kind.OBJECT) continue;
+
+            int i = f.index();
+            tasks.add(ForkJoinPool.commonPool().submit(() -> {
+                try {
+                    values[i] = adapters[i].fromJsonTree(unwrap(raw, format, strings));
+                } catch (Exception ex) {
+                    values[i] = BIND_FAILED;
+                }
+            }));
+        }
+
+        for (ForkJoinTask<?> task : tasks) task.join();
+        return values;
+    }
+
+    private MergeResult mergeStreaming(Path file, Object target, StringDeduplicator strings) {
+        ClassSchema schema = ClassSchema.of(target.getClass());
+        FieldBinder binder = binders.get(target.getClass());
+
+        return CodecSupport.merge(file, mmapThreshold, schema.fields().size(), true, strings, (in, name) -> {
+            FieldSchema f = schema.field(name);
+            if (f == null) return -1;
+
+            binder.read(in, target, f);
+            return f.index();
+        });
     }
 
     /**
@@ -83,16 +437,47 @@ public final class GsonNestedCommentCodec implements ConfigCodec {
      */
     @Override
     public void write(Path file, Object instance) throws IOException {
-        Class<?> type = instance.getClass();
-        JsonObject out = new JsonObject();
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out, instance);
+        }
+    }
+
+    /**
+     * Write the given instance as UTF-8 to {@code out}; see {@link #write(Path, Object)}.
+     *
+     * @param out destination stream, flushed but not closed
+     * @param instance instance to serialize
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(OutputStream out, Object instance) throws IOException {
+        ConfigCodec codec = codecFor(instance.getClass());
+        if (codec != this) {
+            codec.write(out, instance);
+            return;
+        }
 
-        for (Field f : type.getDeclaredFields()) {
-            if (isNotConfigField(f)) continue;
-            writeField(out, instance, f);
+        if (streamingWrite) {
+            CodecSupport.write(out, json -> writeObject(json, instance));
+            return;
         }
 
-        try (Writer w = Files.newBufferedWriter(file)) {
-            gson.toJson(out, w);
+        JsonObject tree = new JsonObject();
+
+        for (FieldSchema f : ClassSchema.of(instance.getClass()).fields()) {
+            writeField(tree, instance, f);
+        }
+
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        gson.toJson(tree, w);
+        w.flush();
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException ex) {
+            return -1;
         }
     }
 
@@ -100,105 +485,242 @@ public final class GsonNestedCommentCodec implements ConfigCodec {
     @Override
     public String defaultExtension() { return ".json"; }
 
-    private JsonElement unwrapComments(JsonElement el) {
-        if (el == null || el.isJsonNull()) return JsonNull.INSTANCE;
+    /**
+     * Detect the form of a parsed file from its first member.
+     *
+     * @return {@link MergeResult.Format#UNKNOWN} for an empty object
+     */
+    private static MergeResult.Format detectFormat(JsonObject source) {
+        for (var e : source.entrySet()) {
+            return (e.getValue() instanceof JsonObject o && CommentUnwrappingReader.isWrapper(o)) ? MergeResult.Format.NESTED : MergeResult.Format.FLAT;
+        }
+        return MergeResult.Format.UNKNOWN;
+    }
 
-        if (el.isJsonObject()) {
-            JsonObject o = el.getAsJsonObject();
+    /**
+     * Unwrap a top-level member of a file in the given form and canonicalize
+     * its strings. In flat files only the member itself is checked for a
+     * wrapper (left by partial hand edits); its contents are bound as they are.
+     */
+    private static JsonElement unwrap(JsonElement raw, MergeResult.Format format, StringDeduplicator strings) {
+        return CodecSupport.canonicalize(unwrap(raw, format), strings);
+    }
 
-            if (o.has("value") && (o.size() == 1 || (o.size() == 2 && o.has("comment")))) {
-                return unwrapComments(o.get("value"));
-            }
-            JsonObject out = new JsonObject();
-            for (var e : o.entrySet()) {
-                out.add(e.getKey(), unwrapComments(e.getValue()));
-            }
-            return out;
+    private static JsonElement unwrap(JsonElement raw, MergeResult.Format format) {
+        if (format == MergeResult.Format.FLAT && !(raw instanceof JsonObject o && CommentUnwrappingReader.isWrapper(o))) return raw;
+        return CommentUnwrappingReader.unwrapComments(raw);
+    }
+
+    private void writeObject(JsonWriter out, Object instance) throws IOException {
+        binders.get(instance.getClass()).writeFields(out, instance);
+    }
+
+    /** Binds fields through their {@link FieldAccessor}s. */
+    private final class ReflectiveBinder implements FieldBinder {
+        private final ClassSchema schema;
+        private final TypeAdapter<?>[] adapters;
+
+        ReflectiveBinder(ClassSchema schema) {
+            this.schema = schema;
+            this.adapters = CodecSupport.fieldAdapters(schema.type());
         }
 
-        if (el.isJsonArray()) {
-            JsonArray in = el.getAsJsonArray();
-            JsonArray out = new JsonArray();
-            for (JsonElement e : in) out.add(unwrapComments(e));
-            return out;
+        @Override
+        public void read(JsonReader in, Object target, FieldSchema f) throws IOException {
+            if (f.kind() != FieldSchema.Kind.OBJECT) {
+                readPrimitive(in, target, f);
+            } else {
+                f.set(target, adapters[f.index()].read(in));
+            }
         }
 
-        return el; // primitive
+        @Override
+        public void writeFields(JsonWriter out, Object instance) throws IOException {
+            out.beginObject();
+            for (FieldSchema f : schema.fields()) {
+                writeField(out, instance, f);
+            }
+            out.endObject();
+        }
     }
 
-    private void writeField(JsonObject out, Object instance, Field f) {
-        f.setAccessible(true);
-
-        final Object value;
-        try {
-            value = f.get(instance);
-        } catch (IllegalAccessException e) {
-            return;
+    private void writeField(JsonWriter out, Object instance, FieldSchema f) throws IOException {
+        out.name(f.name());
+        out.beginObject();
+        out.name("value");
+        if (f.kind() != FieldSchema.Kind.OBJECT) {
+            writePrimitive(out, instance, f);
+        } else {
+            writeValue(out, f.get(instance));
         }
 
-        JsonObject wrapper = new JsonObject();
-        wrapper.add("value", toJsonWithComments(value));
-
-        Comment c = f.getAnnotation(Comment.class);
-        if (c != null && !c.value().isBlank()) {
-            wrapper.addProperty("comment", c.value());
+        if (f.commentJson() != null) {
+            out.name("comment").jsonValue(f.commentJson());
         }
 
-        out.add(f.getName(), wrapper);
+        out.endObject();
     }
 
+    /** Streaming counterpart of {@link CodecSupport#bindPrimitive(Object, FieldSchema, JsonElement)}. */
+    private static void readPrimitive(JsonReader in, Object target, FieldSchema f) throws IOException {
+        FieldAccessor a = f.accessor();
+        switch (f.kind()) {
+            case INT -> a.setInt(target, in.nextInt());
+            case LONG -> a.setLong(target, in.nextLong());
+            case DOUBLE -> a.setDouble(target, in.nextDouble());
+            case FLOAT -> a.setFloat(target, (float) in.nextDouble());
+            case BOOLEAN -> a.setBoolean(target, CodecSupport.readBoolean(in));
+            default -> throw new AssertionError(f.kind());
+        }
+    }
 
-    private JsonElement toJsonWithComments(Object obj) {
-        if (obj == null) return JsonNull.INSTANCE;
-
-        // primitives / enums
-        if (obj instanceof Number || obj instanceof String || obj instanceof Boolean || obj.getClass().isEnum()) {
-            return gson.toJsonTree(obj);
+    /** Write a primitive field without boxing; output matches Gson's primitive adapters. */
+    private static void writePrimitive(JsonWriter out, Object instance, FieldSchema f) throws IOException {
+        FieldAccessor a = f.accessor();
+        switch (f.kind()) {
+            case INT -> out.value(a.getInt(instance));
+            case LONG -> out.value(a.getLong(instance));
+            case DOUBLE -> CodecSupport.writeDouble(out, a.getDouble(instance));
+            case FLOAT -> CodecSupport.writeFloat(out, a.getFloat(instance));
+            case BOOLEAN -> out.value(a.getBoolean(instance));
+            default -> throw new AssertionError(f.kind());
         }
+    }
 
-        // arrays
-        if (obj.getClass().isArray()) {
-            JsonArray arr = new JsonArray();
-            int len = java.lang.reflect.Array.getLength(obj);
-            for (int i = 0; i < len; i++) {
-                Object el = java.lang.reflect.Array.get(obj, i);
-                arr.add(toJsonWithComments(el));
+    /** Write {@code int[]}, {@code long[]}, {@code double[]} and {@code byte[]} without boxing the elements. */
+    private static void writePrimitiveArray(JsonWriter out, Object array) throws IOException {
+        if (array instanceof int[] a) PrimitiveArrayAdapterFactory.INT_ARRAY.write(out, a);
+        else if (array instanceof long[] a) PrimitiveArrayAdapterFactory.LONG_ARRAY.write(out, a);
+        else if (array instanceof double[] a) PrimitiveArrayAdapterFactory.DOUBLE_ARRAY.write(out, a);
+        else if (array instanceof byte[] a) PrimitiveArrayAdapterFactory.BYTE_ARRAY.write(out, a);
+        else throw new IllegalArgumentException(array.getClass().getName());
+    }
+
+    /**
+     * Tree counterpart of {@link #writePrimitiveArray(JsonWriter, Object)}.
+     */
+    private static JsonArray primitiveArrayTree(Object array) {
+        JsonArray arr;
+        if (array instanceof int[] a) {
+            arr = new JsonArray(a.length);
+            for (int v : a) arr.add(v);
+        } else if (array instanceof long[] a) {
+            arr = new JsonArray(a.length);
+            for (long v : a) arr.add(v);
+        } else if (array instanceof double[] a) {
+            arr = new JsonArray(a.length);
+            for (double v : a) {
+                CodecSupport.checkValidFloatingPoint(v);
+                arr.add(v);
             }
-            return arr;
+        } else if (array instanceof byte[] a) {
+            arr = new JsonArray(a.length);
+            for (byte v : a) arr.add(v);
+        } else {
+            throw new IllegalArgumentException(array.getClass().getName());
         }
+        return arr;
+    }
 
-        // iterables
-        if (obj instanceof Iterable<?> it) {
-            JsonArray arr = new JsonArray();
-            for (Object el : it) arr.add(toJsonWithComments(el));
-            return arr;
+    /** Streaming counterpart of {@link #toJsonWithComments(Object)}. */
+    private void writeValue(JsonWriter out, Object obj) throws IOException {
+        if (obj == null) {
+            out.nullValue();
+            return;
         }
 
-        // maps
-        if (obj instanceof Map<?, ?> map) {
-            JsonObject out = new JsonObject();
-            for (var e : map.entrySet()) {
-                if (e.getKey() instanceof String key) {
-                    out.add(key, toJsonWithComments(e.getValue()));
+        CodecSupport.Dispatch d = CodecSupport.dispatch(obj.getClass());
+        switch (d.shape()) {
+            case SCALAR -> d.adapter().write(out, obj);
+            case PRIMITIVE_ARRAY -> writePrimitiveArray(out, obj);
+            case ARRAY -> {
+                out.beginArray();
+                if (obj instanceof Object[] values) {
+                    for (Object el : values) writeValue(out, el);
+                } else {
+                    int len = java.lang.reflect.Array.getLength(obj);
+                    for (int i = 0; i < len; i++) {
+                        writeValue(out, java.lang.reflect.Array.get(obj, i));
+                    }
                 }
+                out.endArray();
             }
-            return out;
+            case ITERABLE -> {
+                out.beginArray();
+                for (Object el : (Iterable<?>) obj) writeValue(out, el);
+                out.endArray();
+            }
+            case MAP -> {
+                out.beginObject();
+                for (var e : ((Map<?, ?>) obj).entrySet()) {
+                    out.name(CodecSupport.mapKey(e.getKey()));
+                    writeValue(out, e.getValue());
+                }
+                out.endObject();
+            }
+            // POJO: wrap each @Expose field recursively
+            case POJO -> writeObject(out, obj);
         }
+    }
+
+    private void writeField(JsonObject out, Object instance, FieldSchema f) {
+        final Object value = f.get(instance);
+
+        JsonObject wrapper = new JsonObject();
+        wrapper.add("value", toJsonWithComments(value));
 
-        // POJO: wrap each @Expose field recursively
-        JsonObject out = new JsonObject();
-        for (Field f : obj.getClass().getDeclaredFields()) {
-            if (isNotConfigField(f)) continue;
-            writeField(out, obj, f);
+        if (f.comment() != null) {
+            wrapper.addProperty("comment", f.comment());
         }
-        return out;
+
+        out.add(f.name(), wrapper);
     }
 
-    private boolean isNotConfigField(Field f) {
-        int m = f.getModifiers();
-        return f.isSynthetic()
-                || Modifier.isStatic(m)
-                || Modifier.isTransient(m)
-                || f.getAnnotation(Expose.class) == null;
+
+    private JsonElement toJsonWithComments(Object obj) {
+        if (obj == null) return JsonNull.INSTANCE;
+
+        CodecSupport.Dispatch d = CodecSupport.dispatch(obj.getClass());
+        switch (d.shape()) {
+            case SCALAR -> {
+                return d.adapter().toJsonTree(obj);
+            }
+            case PRIMITIVE_ARRAY -> {
+                return primitiveArrayTree(obj);
+            }
+            case ARRAY -> {
+                JsonArray arr = new JsonArray();
+                if (obj instanceof Object[] values) {
+                    for (Object el : values) arr.add(toJsonWithComments(el));
+                } else {
+                    int len = java.lang.reflect.Array.getLength(obj);
+                    for (int i = 0; i < len; i++) {
+                        Object el = java.lang.reflect.Array.get(obj, i);
+                        arr.add(toJsonWithComments(el));
+                    }
+                }
+                return arr;
+            }
+            case ITERABLE -> {
+                JsonArray arr = new JsonArray();
+                for (Object el : (Iterable<?>) obj) arr.add(toJsonWithComments(el));
+                return arr;
+            }
+            case MAP -> {
+                JsonObject out = new JsonObject();
+                for (var e : ((Map<?, ?>) obj).entrySet()) {
+                    out.add(CodecSupport.mapKey(e.getKey()), toJsonWithComments(e.getValue()));
+                }
+                return out;
+            }
+            default -> {
+                // POJO: wrap each @Expose field recursively
+                JsonObject out = new JsonObject();
+                for (FieldSchema f : ClassSchema.of(obj.getClass()).fields()) {
+                    writeField(out, obj, f);
+                }
+                return out;
+            }
+        }
     }
 }
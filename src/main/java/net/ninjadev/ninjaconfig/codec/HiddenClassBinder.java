@@ -0,0 +1,318 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * {@link FieldBinder} backed by a hidden class generated for one config class.
+ *
+ * <p>The hidden class is defined as a nestmate of the config class, so it can
+ * use plain {@code getfield}/{@code putfield} instructions on private fields.
+ * It contains two static methods: {@code read}, a {@code tableswitch} over the
+ * field index that parses and stores one field, and {@code write}, which emits
+ * every field and its pre-escaped comment as straight-line code. Values without a
+ * dedicated instruction sequence go through the field's Gson adapter on read
+ * and through the codec's recursive writer on write, so the output is the same
+ * as the reflective path.</p>
+ */
+final class HiddenClassBinder implements FieldBinder {
+
+    private static final String OBJECT = Type.getInternalName(Object.class);
+    private static final String READER = Type.getInternalName(JsonReader.class);
+    private static final String WRITER = Type.getInternalName(JsonWriter.class);
+    private static final String ADAPTER = Type.getInternalName(TypeAdapter.class);
+    private static final String SUPPORT = Type.getInternalName(CodecSupport.class);
+    private static final String FIELD_WRITER = Type.getInternalName(CodecSupport.FieldWriter.class);
+    private static final String WRITER_DESC = Type.getDescriptor(JsonWriter.class);
+
+    private static final MethodType READ = MethodType.methodType(void.class,
+            Object.class, JsonReader.class, int.class, TypeAdapter[].class);
+    private static final MethodType WRITE = MethodType.methodType(void.class,
+            Object.class, JsonWriter.class, CodecSupport.FieldWriter.class);
+
+    private final MethodHandle read;
+    private final MethodHandle write;
+    private final TypeAdapter<?>[] adapters;
+    private final CodecSupport.FieldWriter values;
+
+    private HiddenClassBinder(MethodHandle read, MethodHandle write,
+                              TypeAdapter<?>[] adapters, CodecSupport.FieldWriter values) {
+        this.read = read;
+        this.write = write;
+        this.adapters = adapters;
+        this.values = values;
+    }
+
+    /**
+     * Generate and define the binder for {@code schema}.
+     *
+     * @param schema class to bind
+     * @param adapters field adapters, indexed by {@link FieldSchema#index()}
+     * @param values writes a non-primitive field value in the nested-comment format
+     * @return the binder, or {@code null} when the class cannot be bound by
+     *         generated code (final fields, inaccessible field types, or no
+     *         full-privilege lookup into the class)
+     */
+    static FieldBinder define(ClassSchema schema, TypeAdapter<?>[] adapters, CodecSupport.FieldWriter values) {
+        Class<?> type = schema.type();
+        if (type.isHidden() || type.isArray() || type.isPrimitive()) return null;
+        for (FieldSchema f : schema.fields()) {
+            if (f.isFinal() || !isAccessible(f.rawType(), type)) return null;
+        }
+
+        try {
+            MethodHandles.Lookup host = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            if (!host.hasFullPrivilegeAccess()) return null;
+
+            MethodHandles.Lookup lookup = host.defineHiddenClass(generate(schema), true,
+                    MethodHandles.Lookup.ClassOption.NESTMATE);
+            Class<?> binder = lookup.lookupClass();
+
+            return new HiddenClassBinder(
+                    lookup.findStatic(binder, "read", READ),
+                    lookup.findStatic(binder, "write", WRITE),
+                    adapters, values);
+        } catch (IllegalAccessException | NoSuchMethodException | RuntimeException | LinkageError ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public void read(JsonReader in, Object target, FieldSchema f) throws IOException {
+        try {
+            read.invokeExact(target, in, f.index(), adapters);
+        } catch (IOException | RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    @Override
+    public void writeFields(JsonWriter out, Object instance) throws IOException {
+        try {
+            write.invokeExact(instance, out, values);
+        } catch (IOException | RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static byte[] generate(ClassSchema schema) {
+        String owner = Type.getInternalName(schema.type());
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // frames only ever merge identical local types; avoid loading classes here
+                return OBJECT;
+            }
+        };
+        cw.visit(Opcodes.V17, Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+                owner + "$$NinjaBinder", null, OBJECT, null);
+
+        generateRead(cw, owner, schema.fields());
+        generateWrite(cw, owner, schema.fields());
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /* static void read(Object target, JsonReader in, int index, TypeAdapter[] adapters) */
+    private static void generateRead(ClassWriter cw, String owner, List<FieldSchema> fields) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_STATIC, "read", READ.toMethodDescriptorString(),
+                null, new String[] { Type.getInternalName(IOException.class) });
+        mv.visitCode();
+
+        Label end = new Label();
+        Label[] cases = new Label[fields.size()];
+        for (int i = 0; i < cases.length; i++) cases[i] = new Label();
+
+        mv.visitVarInsn(Opcodes.ILOAD, 2);
+        if (cases.length > 0) {
+            mv.visitTableSwitchInsn(0, cases.length - 1, end, cases);
+        } else {
+            mv.visitInsn(Opcodes.POP);
+        }
+
+        for (FieldSchema f : fields) {
+            mv.visitLabel(cases[f.index()]);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, owner);
+
+            switch (f.kind()) {
+                case INT -> readerCall(mv, "nextInt", "()I");
+                case LONG -> readerCall(mv, "nextLong", "()J");
+                case DOUBLE -> readerCall(mv, "nextDouble", "()D");
+                case FLOAT -> {
+                    readerCall(mv, "nextDouble", "()D");
+                    mv.visitInsn(Opcodes.D2F);
+                }
+                case BOOLEAN -> {
+                    mv.visitVarInsn(Opcodes.ALOAD, 1);
+                    mv.visitMethodInsn(Opcodes.INVOKESTATIC, SUPPORT, "readBoolean", "(L" + READER + ";)Z", false);
+                }
+                case OBJECT -> {
+                    mv.visitVarInsn(Opcodes.ALOAD, 3);
+                    pushInt(mv, f.index());
+                    mv.visitInsn(Opcodes.AALOAD);
+                    mv.visitVarInsn(Opcodes.ALOAD, 1);
+                    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, ADAPTER, "read", "(L" + READER + ";)L" + OBJECT + ";", false);
+                    castFromObject(mv, f.rawType());
+                }
+            }
+
+            mv.visitFieldInsn(Opcodes.PUTFIELD, owner, f.name(), Type.getDescriptor(f.rawType()));
+            mv.visitJumpInsn(Opcodes.GOTO, end);
+        }
+
+        mv.visitLabel(end);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /* static void write(Object value, JsonWriter out, FieldWriter values) */
+    private static void generateWrite(ClassWriter cw, String owner, List<FieldSchema> fields) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_STATIC, "write", WRITE.toMethodDescriptorString(),
+                null, new String[] { Type.getInternalName(IOException.class) });
+        mv.visitCode();
+
+        writerCall(mv, "beginObject", "()");
+        for (FieldSchema f : fields) {
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitLdcInsn(f.name());
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, WRITER, "name", "(Ljava/lang/String;)" + WRITER_DESC, false);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, WRITER, "beginObject", "()" + WRITER_DESC, false);
+            mv.visitLdcInsn("value");
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, WRITER, "name", "(Ljava/lang/String;)" + WRITER_DESC, false);
+
+            String desc = Type.getDescriptor(f.rawType());
+            switch (f.kind()) {
+                case INT -> {
+                    loadField(mv, owner, f.name(), desc);
+                    mv.visitInsn(Opcodes.I2L);
+                    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, WRITER, "value", "(J)" + WRITER_DESC, false);
+                    mv.visitInsn(Opcodes.POP);
+                }
+                case LONG -> {
+                    loadField(mv, owner, f.name(), desc);
+                    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, WRITER, "value", "(J)" + WRITER_DESC, false);
+                    mv.visitInsn(Opcodes.POP);
+                }
+                case BOOLEAN -> {
+                    loadField(mv, owner, f.name(), desc);
+                    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, WRITER, "value", "(Z)" + WRITER_DESC, false);
+                    mv.visitInsn(Opcodes.POP);
+                }
+                case DOUBLE -> {
+                    loadField(mv, owner, f.name(), desc);
+                    mv.visitMethodInsn(Opcodes.INVOKESTATIC, SUPPORT, "writeDouble", "(" + WRITER_DESC + "D)V", false);
+                }
+                case FLOAT -> {
+                    loadField(mv, owner, f.name(), desc);
+                    mv.visitMethodInsn(Opcodes.INVOKESTATIC, SUPPORT, "writeFloat", "(" + WRITER_DESC + "F)V", false);
+                }
+                case OBJECT -> {
+                    mv.visitInsn(Opcodes.POP);
+                    mv.visitVarInsn(Opcodes.ALOAD, 2);
+                    mv.visitVarInsn(Opcodes.ALOAD, 1);
+                    mv.visitVarInsn(Opcodes.ALOAD, 0);
+                    mv.visitTypeInsn(Opcodes.CHECKCAST, owner);
+                    mv.visitFieldInsn(Opcodes.GETFIELD, owner, f.name(), desc);
+                    if (f.rawType().isPrimitive()) box(mv, f.rawType());
+                    mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, FIELD_WRITER, "write", "(" + WRITER_DESC + "L" + OBJECT + ";)V", true);
+                }
+            }
+
+            if (f.commentJson() != null) {
+                mv.visitVarInsn(Opcodes.ALOAD, 1);
+                mv.visitLdcInsn("comment");
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, WRITER, "name", "(Ljava/lang/String;)" + WRITER_DESC, false);
+                mv.visitLdcInsn(f.commentJson());
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, WRITER, "jsonValue", "(Ljava/lang/String;)" + WRITER_DESC, false);
+                mv.visitInsn(Opcodes.POP);
+            }
+            writerCall(mv, "endObject", "()");
+        }
+        writerCall(mv, "endObject", "()");
+
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /* leaves the writer returned by name("value") on the stack; the field value goes on top of it */
+    private static void loadField(MethodVisitor mv, String owner, String name, String desc) {
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, owner);
+        mv.visitFieldInsn(Opcodes.GETFIELD, owner, name, desc);
+    }
+
+    private static void readerCall(MethodVisitor mv, String method, String desc) {
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, READER, method, desc, false);
+    }
+
+    private static void writerCall(MethodVisitor mv, String method, String args) {
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, WRITER, method, args + WRITER_DESC, false);
+        mv.visitInsn(Opcodes.POP);
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value <= 5) mv.visitInsn(Opcodes.ICONST_0 + value);
+        else if (value <= Byte.MAX_VALUE) mv.visitIntInsn(Opcodes.BIPUSH, value);
+        else if (value <= Short.MAX_VALUE) mv.visitIntInsn(Opcodes.SIPUSH, value);
+        else mv.visitLdcInsn(value);
+    }
+
+    /* adapter results are Objects: cast to the field type, unboxing primitives */
+    private static void castFromObject(MethodVisitor mv, Class<?> type) {
+        if (type.isPrimitive()) {
+            Class<?> boxed = MethodType.methodType(type).wrap().returnType();
+            String boxName = Type.getInternalName(boxed);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, boxName);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, boxName, type.getName() + "Value",
+                    "()" + Type.getDescriptor(type), false);
+        } else if (type != Object.class) {
+            mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+        }
+    }
+
+    private static void box(MethodVisitor mv, Class<?> type) {
+        Class<?> boxed = MethodType.methodType(type).wrap().returnType();
+        String boxName = Type.getInternalName(boxed);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, boxName, "valueOf",
+                "(" + Type.getDescriptor(type) + ")L" + boxName + ";", false);
+    }
+
+    /* the generated code names every field type, so each must resolve from the config class */
+    private static boolean isAccessible(Class<?> type, Class<?> from) {
+        while (type.isArray()) type = type.getComponentType();
+        if (type.isPrimitive()) return true;
+
+        for (Class<?> c = type; c != null; c = c.getDeclaringClass()) {
+            int m = c.getModifiers();
+            if (Modifier.isPublic(m)) continue;
+            boolean samePackage = c.getClassLoader() == from.getClassLoader()
+                    && c.getPackageName().equals(from.getPackageName());
+            if (!samePackage || (Modifier.isPrivate(m) && c.getNestHost() != from.getNestHost())) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,56 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * Nested-comment JSON codec that binds fields through bytecode generated at
+ * runtime, for mods that do not run the annotation processor behind
+ * {@link net.ninjadev.ninjaconfig.annotation.GenerateCodec}.
+ *
+ * <p>On first use of a config class a hidden class is defined next to it
+ * ({@link java.lang.invoke.MethodHandles.Lookup#defineHiddenClass}) with
+ * direct field reads and writes for its exposed fields; later calls reuse it.
+ * Reads and writes are streaming and produce the same files as
+ * {@link GsonNestedCommentCodec}. Classes that cannot be bound this way, such
+ * as those with {@code final} exposed fields, use reflection instead.</p>
+ */
+public final class HiddenClassCodec implements ConfigCodec {
+
+    private final GsonNestedCommentCodec delegate = new GsonNestedCommentCodec.Builder()
+            .streamingRead(true)
+            .streamingWrite(true)
+            .hiddenClasses(true)
+            .build();
+
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target) throws IOException {
+        return delegate.mergeInto(file, target);
+    }
+
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target, StringDeduplicator strings) throws IOException {
+        return delegate.mergeInto(file, target, strings);
+    }
+
+    @Override
+    public <T> MergeResult remergeInto(Path file, T target, Runnable resetDefaults,
+                                       FieldFingerprints fingerprints, StringDeduplicator strings) throws IOException {
+        return delegate.remergeInto(file, target, resetDefaults, fingerprints, strings);
+    }
+
+    @Override
+    public void write(Path file, Object instance) throws IOException {
+        delegate.write(file, instance);
+    }
+
+    @Override
+    public void write(OutputStream out, Object instance) throws IOException {
+        delegate.write(out, instance);
+    }
+
+    /** @return ".json" */
+    @Override
+    public String defaultExtension() { return ".json"; }
+}
@@ -0,0 +1,309 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import net.ninjadev.ninjaconfig.annotation.Comment;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON codec that writes each {@link Comment} as {@code //} lines above its
+ * member instead of wrapping the value, so files hold plain values and read
+ * without any unwrapping:
+ *
+ * <pre>{@code
+ * {
+ *   // Maximum number of homes per player
+ *   "maxHomes": 3,
+ *   "spawn": {
+ *     // Dimension id
+ *     "world": "minecraft:overworld"
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Files are read with Gson's lenient streaming parser, which skips
+ * {@code //}, {@code /* *}{@code /} and {@code #} comments inside its buffer
+ * and also accepts unquoted names and single-quoted strings (but not trailing
+ * commas; in an array one reads as a {@code null} element). Values are bound
+ * straight into the target's fields. Files in the nested-comment form of
+ * {@link GsonNestedCommentCodec} are read as well and reported as
+ * {@link MergeResult.Format#NESTED}; wrappers are only hidden in such files,
+ * never in this codec's own form. {@code ConfigManager} rewrites nested files
+ * in this form on first load. The default extension is {@code .json} for the
+ * same reason.</p>
+ */
+public final class JsoncConfigCodec implements ConfigCodec {
+
+    private static final int INDENT = 2;
+
+    /* member names and comment lines resolved once per class */
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return new Layout(ClassSchema.of(type));
+        }
+    };
+
+    /** Create a JSONC codec. */
+    public JsoncConfigCodec() {}
+
+    /**
+     * Merge the JSONC (or nested-comment JSON) file at {@code file} into
+     * {@code target}. When a file is malformed part-way through, fields bound
+     * before the error keep their values.
+     *
+     * @param file file to read
+     * @param target target instance to populate
+     * @param <T> concrete type of the target
+     * @return result indicating whether the file existed and if there were missing keys or parse errors
+     */
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target) {
+        return mergeInto(file, target, null);
+    }
+
+    /**
+     * Merge as {@link #mergeInto(Path, Object)}, canonicalizing decoded
+     * strings through {@code strings}.
+     *
+     * @param file file to read
+     * @param target target instance to populate
+     * @param strings table to canonicalize decoded strings through, or {@code null}
+     * @param <T> concrete type of the target
+     * @return result as for {@link #mergeInto(Path, Object)}
+     */
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target, StringDeduplicator strings) {
+        if (!Files.exists(file)) {
+            return new MergeResult(false, true, false);
+        }
+
+        ClassSchema schema = ClassSchema.of(target.getClass());
+        TypeAdapter<?>[] adapters = CodecSupport.fieldAdapters(target.getClass());
+
+        MergeResult result = CodecSupport.merge(file, -1, schema.fields().size(), false, strings, (in, name) -> {
+            FieldSchema f = schema.field(name);
+            if (f == null) return -1;
+
+            readField(in, target, f, adapters[f.index()]);
+            return f.index();
+        });
+
+        // plain values are this codec's own form
+        if (result.format() == MergeResult.Format.FLAT) {
+            return new MergeResult(result.fileExists(), result.missingKeys(), result.parseError(), MergeResult.Format.COMMENTED);
+        }
+        return result;
+    }
+
+    /**
+     * Write {@code instance} to {@code file} with comments as {@code //} lines.
+     *
+     * @param file destination file
+     * @param instance instance to serialize
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(Path file, Object instance) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out, instance);
+        }
+    }
+
+    /**
+     * Write {@code instance} as UTF-8 to {@code out}; see {@link #write(Path, Object)}.
+     *
+     * @param out destination stream, flushed but not closed
+     * @param instance instance to serialize
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(OutputStream out, Object instance) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        new Emitter(w).writeValue(instance);
+        w.write('\n');
+        w.flush();
+    }
+
+    /** @return {@link MergeResult.Format#COMMENTED} */
+    @Override
+    public MergeResult.Format writtenFormat() { return MergeResult.Format.COMMENTED; }
+
+    /** @return ".json", so that existing nested-comment files are picked up and migrated */
+    @Override
+    public String defaultExtension() { return ".json"; }
+
+    @SuppressWarnings("unchecked")
+    private static void readField(JsonReader in, Object target, FieldSchema f, TypeAdapter<?> adapter) throws IOException {
+        FieldAccessor a = f.accessor();
+        switch (f.kind()) {
+            case INT -> a.setInt(target, in.nextInt());
+            case LONG -> a.setLong(target, in.nextLong());
+            case DOUBLE -> a.setDouble(target, in.nextDouble());
+            case FLOAT -> a.setFloat(target, (float) in.nextDouble());
+            case BOOLEAN -> a.setBoolean(target, CodecSupport.readBoolean(in));
+            case OBJECT -> f.set(target, ((TypeAdapter<Object>) adapter).read(in));
+        }
+    }
+
+    /** Quoted member names and comment lines of one class. */
+    private static final class Layout {
+        final List<FieldSchema> fields;
+        final String[] names;
+        /* comment lines per field index, null when the field has no comment */
+        final String[][] comments;
+
+        Layout(ClassSchema schema) {
+            this.fields = schema.fields();
+            this.names = new String[fields.size()];
+            this.comments = new String[fields.size()][];
+            for (FieldSchema f : fields) {
+                names[f.index()] = CodecSupport.jsonString(f.name());
+                if (f.comment() != null) comments[f.index()] = f.comment().split("\\R", -1);
+            }
+        }
+    }
+
+    /**
+     * Writes one document. Structure, indentation and comments are written
+     * straight to the output; scalar values go through a compact lenient
+     * {@link JsonWriter} on the same output, which accepts one top-level
+     * value after another, so Gson's adapters format them.
+     */
+    private final class Emitter {
+        private final Writer out;
+        private final JsonWriter scalars;
+        private int depth;
+        /* true until the innermost open container gets its first member; a closed container counts as one */
+        private boolean empty;
+
+        Emitter(Writer out) {
+            this.out = out;
+            this.scalars = new JsonWriter(out);
+            this.scalars.setLenient(true);
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.write("null");
+                return;
+            }
+
+            CodecSupport.Dispatch d = CodecSupport.dispatch(value.getClass());
+            switch (d.shape()) {
+                case SCALAR -> d.adapter().write(scalars, value);
+                case PRIMITIVE_ARRAY -> writePrimitiveArray(value);
+                case ARRAY -> {
+                    beginContainer('[');
+                    if (value instanceof Object[] values) {
+                        for (Object el : values) writeElement(el);
+                    } else {
+                        int len = java.lang.reflect.Array.getLength(value);
+                        for (int i = 0; i < len; i++) writeElement(java.lang.reflect.Array.get(value, i));
+                    }
+                    endContainer(']');
+                }
+                case ITERABLE -> {
+                    beginContainer('[');
+                    for (Object el : (Iterable<?>) value) writeElement(el);
+                    endContainer(']');
+                }
+                case MAP -> {
+                    beginContainer('{');
+                    for (var e : ((Map<?, ?>) value).entrySet()) {
+                        separator();
+                        scalars.value(CodecSupport.mapKey(e.getKey()));
+                        out.write(": ");
+                        writeValue(e.getValue());
+                    }
+                    endContainer('}');
+                }
+                case POJO -> writeFields(value, LAYOUTS.get(value.getClass()));
+            }
+        }
+
+        private void writeFields(Object instance, Layout layout) throws IOException {
+            beginContainer('{');
+            for (FieldSchema f : layout.fields) {
+                separator();
+                String[] lines = layout.comments[f.index()];
+                if (lines != null) {
+                    for (String line : lines) {
+                        out.write("// ");
+                        out.write(line);
+                        newline();
+                    }
+                }
+                out.write(layout.names[f.index()]);
+                out.write(": ");
+                if (f.kind() != FieldSchema.Kind.OBJECT) {
+                    writePrimitive(instance, f);
+                } else {
+                    writeValue(f.get(instance));
+                }
+            }
+            endContainer('}');
+        }
+
+        private void writePrimitive(Object instance, FieldSchema f) throws IOException {
+            FieldAccessor a = f.accessor();
+            switch (f.kind()) {
+                case INT -> scalars.value(a.getInt(instance));
+                case LONG -> scalars.value(a.getLong(instance));
+                case DOUBLE -> CodecSupport.writeDouble(scalars, a.getDouble(instance));
+                case FLOAT -> CodecSupport.writeFloat(scalars, a.getFloat(instance));
+                case BOOLEAN -> scalars.value(a.getBoolean(instance));
+                default -> throw new AssertionError(f.kind());
+            }
+        }
+
+        private void writePrimitiveArray(Object array) throws IOException {
+            if (array instanceof int[] a) PrimitiveArrayAdapterFactory.INT_ARRAY.write(scalars, a);
+            else if (array instanceof long[] a) PrimitiveArrayAdapterFactory.LONG_ARRAY.write(scalars, a);
+            else if (array instanceof double[] a) PrimitiveArrayAdapterFactory.DOUBLE_ARRAY.write(scalars, a);
+            else if (array instanceof byte[] a) PrimitiveArrayAdapterFactory.BYTE_ARRAY.write(scalars, a);
+            else throw new IllegalArgumentException(array.getClass().getName());
+        }
+
+        private void writeElement(Object value) throws IOException {
+            separator();
+            writeValue(value);
+        }
+
+        private void beginContainer(char open) throws IOException {
+            out.write(open);
+            depth++;
+            empty = true;
+        }
+
+        /* ends the previous member, if any, and starts a new line for the next one */
+        private void separator() throws IOException {
+            if (!empty) out.write(',');
+            empty = false;
+            newline();
+        }
+
+        private void endContainer(char close) throws IOException {
+            depth--;
+            if (!empty) newline();
+            empty = false;
+            out.write(close);
+        }
+
+        private void newline() throws IOException {
+            out.write('\n');
+            for (int i = depth * INDENT; i > 0; i--) out.write(' ');
+        }
+    }
+}
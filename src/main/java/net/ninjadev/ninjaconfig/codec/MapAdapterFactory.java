@@ -0,0 +1,138 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.Map;
+
+/**
+ * Reads and writes {@link Map} objects using only the public
+ * {@link JsonReader} API.
+ *
+ * <p>Gson's built-in map adapter reaches into the internal state of the reader
+ * to turn member names into values, which does not work for reader views such
+ * as {@link CommentUnwrappingReader}. This adapter reads names with
+ * {@link JsonReader#nextName()} and converts keys that are not strings through
+ * the key type's adapter, as if the name were a JSON string. Keys that are not
+ * strings are written the same way in reverse, so enum constants keep their
+ * serialized names. String-keyed maps are written, and array-encoded maps read
+ * and constructed, by Gson.</p>
+ */
+final class MapAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!Map.class.isAssignableFrom(type.getRawType())) return null;
+
+        Type[] args = mapArguments(type.getType());
+        TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+        TypeAdapter<?> keys = (args[0] == String.class) ? null : gson.getAdapter(TypeToken.get(args[0]));
+        TypeAdapter<?> values = gson.getAdapter(TypeToken.get(args[1]));
+        return new Adapter<>(delegate, keys, values);
+    }
+
+    /** @return the key and value types of a map type; unresolved arguments are {@link Object} */
+    private static Type[] mapArguments(Type type) {
+        if (type instanceof ParameterizedType p && p.getRawType() == Map.class) {
+            Type[] args = p.getActualTypeArguments();
+            return new Type[]{bound(args[0]), bound(args[1])};
+        }
+
+        Class<?> raw = (type instanceof ParameterizedType p) ? (Class<?>) p.getRawType() : (Class<?>) type;
+        if (raw != Map.class) {
+            for (Type t : raw.getGenericInterfaces()) {
+                if (Map.class.isAssignableFrom(TypeToken.get(t).getRawType())) return mapArguments(t);
+            }
+            Type superType = raw.getGenericSuperclass();
+            if (superType != null && Map.class.isAssignableFrom(TypeToken.get(superType).getRawType())) {
+                return mapArguments(superType);
+            }
+        }
+        return new Type[]{Object.class, Object.class};
+    }
+
+    private static Type bound(Type t) {
+        if (t instanceof WildcardType w) return bound(w.getUpperBounds()[0]);
+        return (t instanceof Class<?> || t instanceof ParameterizedType) ? t : Object.class;
+    }
+
+    private static final class Adapter<T> extends TypeAdapter<T> {
+        private final TypeAdapter<T> delegate;
+        /* null for String keys */
+        private final TypeAdapter<Object> keys;
+        private final TypeAdapter<Object> values;
+
+        @SuppressWarnings("unchecked")
+        Adapter(TypeAdapter<T> delegate, TypeAdapter<?> keys, TypeAdapter<?> values) {
+            this.delegate = delegate;
+            this.keys = (TypeAdapter<Object>) keys;
+            this.values = (TypeAdapter<Object>) values;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            if (keys == null) {
+                delegate.write(out, value);
+                return;
+            }
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            for (var e : ((Map<?, ?>) value).entrySet()) {
+                out.name(keyToString(e.getKey()));
+                values.write(out, e.getValue());
+            }
+            out.endObject();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T read(JsonReader in) throws IOException {
+            JsonToken t = in.peek();
+            if (t == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            if (t != JsonToken.BEGIN_OBJECT) return delegate.read(in);
+
+            T result = delegate.fromJsonTree(new JsonObject());
+            Map<Object, Object> map = (Map<Object, Object>) result;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                Object key = (keys == null) ? name : keys.fromJsonTree(new JsonPrimitive(name));
+                Object value = values.read(in);
+                if (map.put(key, value) != null) {
+                    throw new JsonSyntaxException("duplicate key: " + key);
+                }
+            }
+            in.endObject();
+            return result;
+        }
+
+        /* the member name of a key: its JSON string or number, or String.valueOf as Gson falls back to */
+        private String keyToString(Object key) {
+            if (key == null) return "null";
+
+            JsonElement el = keys.toJsonTree(key);
+            return el.isJsonPrimitive() ? el.getAsString() : String.valueOf(key);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link Reader} over a memory-mapped UTF-8 file. Bytes are copied from the
+ * mapping in bulk and decoded into the caller's buffer, skipping the read
+ * system calls and the intermediate char buffer of
+ * {@link Files#newBufferedReader(Path)}.
+ *
+ * <p>Malformed input is reported as an error, as with
+ * {@code newBufferedReader}. The mapping is released when the buffer is
+ * garbage collected, not on {@link #close()}.</p>
+ */
+final class MappedFileReader extends Reader {
+
+    private static final int WINDOW = 64 * 1024;
+
+    private final ByteBuffer bytes;
+    /* heap window the mapped bytes are copied into in bulk; the decoder's array fast path needs heap buffers */
+    private final ByteBuffer window = ByteBuffer.allocate(WINDOW).flip();
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    private boolean flushed;
+    /* low surrogate left over when the caller's buffer had room for one char only */
+    private int pending = -1;
+
+    private MappedFileReader(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Open {@code file} for reading, mapping it when it is at least
+     * {@code threshold} bytes long.
+     *
+     * @param file file to read
+     * @param threshold minimum size for mapping, or a negative value to never map
+     * @return a reader over the file
+     * @throws IOException if the file cannot be opened
+     */
+    static Reader open(Path file, long threshold) throws IOException {
+        if (threshold < 0) return Files.newBufferedReader(file);
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < threshold || size > Integer.MAX_VALUE) return Files.newBufferedReader(file);
+            return new MappedFileReader(ch.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (pending >= 0) {
+            cbuf[off] = (char) pending;
+            pending = -1;
+            return 1;
+        }
+        if (flushed) return -1;
+
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        decode(out);
+
+        if (out.position() == off && !flushed) {
+            // a surrogate pair does not fit: decode it aside and hand out one half
+            CharBuffer pair = CharBuffer.allocate(2);
+            decode(pair);
+            pair.flip();
+            if (!pair.hasRemaining()) return -1;
+            cbuf[off] = pair.get();
+            if (pair.hasRemaining()) pending = pair.get();
+            return 1;
+        }
+
+        int n = out.position() - off;
+        return (n == 0 && flushed) ? -1 : n;
+    }
+
+    private void decode(CharBuffer out) throws IOException {
+        CoderResult result;
+        do {
+            if (bytes.hasRemaining() && window.remaining() < WINDOW / 2) {
+                window.compact();
+                int n = Math.min(window.remaining(), bytes.remaining());
+                window.put(window.position(), bytes, bytes.position(), n);
+                window.position(window.position() + n);
+                bytes.position(bytes.position() + n);
+                window.flip();
+            }
+            result = decoder.decode(window, out, !bytes.hasRemaining());
+            if (result.isError()) result.throwException();
+        } while (result.isUnderflow() && out.hasRemaining() && bytes.hasRemaining());
+
+        if (!bytes.hasRemaining() && !window.hasRemaining() && result.isUnderflow()) {
+            result = decoder.flush(out);
+            if (result.isError()) result.throwException();
+            if (result.isUnderflow()) flushed = true;
+        }
+    }
+
+    @Override
+    public void close() {
+        // the mapping has no close operation; it is unmapped once unreachable
+    }
+}
@@ -6,6 +6,32 @@ package net.ninjadev.ninjaconfig.codec;
  * @param fileExists whether the file existed on disk
  * @param missingKeys whether required or expected keys were missing during merge
  * @param parseError whether a parse error occurred while reading the file
+ * @param format form of the file as detected by the codec
  */
-public record MergeResult(boolean fileExists, boolean missingKeys, boolean parseError) {
+public record MergeResult(boolean fileExists, boolean missingKeys, boolean parseError, Format format) {
+
+    /**
+     * Form of a file read by a codec that accepts more than one.
+     */
+    public enum Format {
+        /** Values wrapped with their comments, as the nested-comment codecs write them. */
+        NESTED,
+        /** Plain values without comment wrappers; such files are rewritten in canonical form. */
+        FLAT,
+        /** Plain values with comments as {@code //} lines, as {@link JsoncConfigCodec} writes them. */
+        COMMENTED,
+        /** The codec does not distinguish forms, or the file could not be read. */
+        UNKNOWN
+    }
+
+    /**
+     * Result for a codec that does not report the file's form.
+     *
+     * @param fileExists whether the file existed on disk
+     * @param missingKeys whether required or expected keys were missing during merge
+     * @param parseError whether a parse error occurred while reading the file
+     */
+    public MergeResult(boolean fileExists, boolean missingKeys, boolean parseError) {
+        this(fileExists, missingKeys, parseError, Format.UNKNOWN);
+    }
 }
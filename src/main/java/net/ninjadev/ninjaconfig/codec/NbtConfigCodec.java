@@ -0,0 +1,469 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.TypeAdapter;
+import net.minecraft.nbt.AbstractNbtNumber;
+import net.minecraft.nbt.NbtByte;
+import net.minecraft.nbt.NbtByteArray;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtDouble;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtFloat;
+import net.minecraft.nbt.NbtInt;
+import net.minecraft.nbt.NbtIntArray;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtLong;
+import net.minecraft.nbt.NbtLongArray;
+import net.minecraft.nbt.NbtString;
+import net.ninjadev.ninjaconfig.collection.IntList;
+import net.ninjadev.ninjaconfig.collection.LongList;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codec that stores configs as GZip-compressed NBT through {@link NbtIo},
+ * the format Minecraft uses for its own data files.
+ *
+ * <p>Each exposed field becomes a tag of the root compound: primitive
+ * fields map to the matching numeric tag ({@code boolean} to a byte tag),
+ * {@code int[]}, {@code long[]}, {@code byte[]}, {@link IntList} and
+ * {@link LongList} to the typed array tags, and other values are converted
+ * through the same Gson adapters as the JSON codecs. Their JSON form maps
+ * objects to compounds, strings to string tags, integers to int tags (long
+ * tags when they do not fit), integer-only arrays to int or long array tags
+ * and other arrays to lists. Booleans inside values are byte tags, so
+ * {@code Byte} and {@code Short} values are stored as int tags; arrays whose
+ * elements do not share one tag type (or contain {@code null}) are stored as
+ * a list of compounds that hold each element under the empty key.
+ * {@code null} values are omitted.</p>
+ *
+ * <p>Comments are not written to the NBT file. With
+ * {@link Builder#commentSidecar(boolean)} the comments of the top-level
+ * fields are written to a JSON file next to it instead, named after the
+ * config file with {@value #SIDECAR_SUFFIX} appended.</p>
+ */
+public final class NbtConfigCodec implements ConfigCodec {
+
+    /** Appended to the config file name to name the comment sidecar. */
+    public static final String SIDECAR_SUFFIX = ".comments.json";
+
+    /**
+     * Builder for creating a {@link NbtConfigCodec} with custom settings.
+     */
+    public static final class Builder {
+        private boolean commentSidecar;
+
+        /**
+         * Write the {@code @Comment} text of the top-level fields to a JSON
+         * sidecar next to each config file. Disabled by default.
+         */
+        public Builder commentSidecar(boolean commentSidecar) { this.commentSidecar = commentSidecar; return this; }
+
+        /**
+         * Build the codec.
+         *
+         * @return configured codec
+         */
+        public NbtConfigCodec build() {
+            return new NbtConfigCodec(this);
+        }
+    }
+
+    /* key of the element inside a boxed list entry */
+    private static final String BOXED = "";
+
+    private final boolean commentSidecar;
+    /* sidecar document of each class, built on first write */
+    private final ClassValue<String> sidecars = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            JsonObject comments = new JsonObject();
+            for (FieldSchema f : ClassSchema.of(type).fields()) {
+                if (f.comment() != null) comments.addProperty(f.name(), f.comment());
+            }
+            return new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(comments);
+        }
+    };
+
+    /** Create a codec without a comment sidecar. */
+    public NbtConfigCodec() {
+        this(new Builder());
+    }
+
+    private NbtConfigCodec(Builder builder) {
+        this.commentSidecar = builder.commentSidecar;
+    }
+
+    /**
+     * Merge the NBT file at {@code file} into {@code target}. A tag that cannot
+     * be bound to its field is reported as missing and the field keeps its
+     * value; an unreadable file is a parse error.
+     *
+     * @param file file to read
+     * @param target target instance to populate
+     * @param <T> concrete type of the target
+     * @return result indicating whether the file existed and if there were missing keys or parse errors
+     */
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target) {
+        return mergeInto(file, target, null);
+    }
+
+    /**
+     * Merge as {@link #mergeInto(Path, Object)}, canonicalizing decoded
+     * strings through {@code strings}.
+     *
+     * @param file file to read
+     * @param target target instance to populate
+     * @param strings table to canonicalize decoded strings through, or {@code null}
+     * @param <T> concrete type of the target
+     * @return result as for {@link #mergeInto(Path, Object)}
+     */
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target, StringDeduplicator strings) {
+        if (!Files.exists(file)) {
+            return new MergeResult(false, true, false);
+        }
+
+        final NbtCompound root;
+        try (InputStream in = Files.newInputStream(file)) {
+            root = NbtIo.readCompressed(in);
+        } catch (Exception ex) {
+            return new MergeResult(true, true, true);
+        }
+
+        boolean missing = false;
+        TypeAdapter<?>[] adapters = CodecSupport.fieldAdapters(target.getClass());
+        for (FieldSchema f : ClassSchema.of(target.getClass()).fields()) {
+            NbtElement tag = root.get(f.name());
+            if (tag == null) {
+                missing = true;
+                continue;
+            }
+
+            try {
+                if (!readField(tag, target, f, adapters[f.index()], strings)) missing = true;
+            } catch (RuntimeException ex) {
+                missing = true;
+            }
+        }
+        return new MergeResult(true, missing, false);
+    }
+
+    /**
+     * Write {@code instance} to {@code file} as compressed NBT, followed by
+     * the comment sidecar when enabled.
+     *
+     * @param file destination file
+     * @param instance instance to serialize
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(Path file, Object instance) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out, instance);
+        }
+        writeCompanions(file, instance);
+    }
+
+    /**
+     * Write {@code instance} as compressed NBT to {@code out}; see {@link #write(Path, Object)}.
+     *
+     * @param out destination stream, flushed but not closed
+     * @param instance instance to serialize
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(OutputStream out, Object instance) throws IOException {
+        NbtCompound root = new NbtCompound();
+        TypeAdapter<?>[] adapters = CodecSupport.fieldAdapters(instance.getClass());
+        for (FieldSchema f : ClassSchema.of(instance.getClass()).fields()) {
+            writeField(root, instance, f, adapters[f.index()]);
+        }
+
+        // NbtIo closes the stream it writes to
+        NbtIo.writeCompressed(root, new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+    }
+
+    /**
+     * Write the comment sidecar of {@code file} when enabled and its
+     * contents differ from the file on disk.
+     *
+     * @param file config file that was written
+     * @param instance instance that was written
+     * @throws IOException if the sidecar cannot be written
+     */
+    @Override
+    public void writeCompanions(Path file, Object instance) throws IOException {
+        if (!commentSidecar) return;
+
+        Path sidecar = file.resolveSibling(file.getFileName() + SIDECAR_SUFFIX);
+        String contents = sidecars.get(instance.getClass());
+        if (Files.exists(sidecar) && Files.readString(sidecar).equals(contents)) return;
+        Files.writeString(sidecar, contents);
+    }
+
+    /** @return ".nbt" */
+    @Override
+    public String defaultExtension() { return ".nbt"; }
+
+    /**
+     * Bind one field from its tag.
+     *
+     * @return false when the tag does not fit the field
+     */
+    private static boolean readField(NbtElement tag, Object target, FieldSchema f, TypeAdapter<?> adapter,
+                                     StringDeduplicator strings) {
+        FieldAccessor a = f.accessor();
+        if (f.kind() != FieldSchema.Kind.OBJECT) {
+            if (!(tag instanceof AbstractNbtNumber n)) return false;
+            switch (f.kind()) {
+                case INT -> a.setInt(target, n.intValue());
+                case LONG -> a.setLong(target, n.longValue());
+                case DOUBLE -> a.setDouble(target, n.doubleValue());
+                case FLOAT -> a.setFloat(target, n.floatValue());
+                case BOOLEAN -> a.setBoolean(target, n.byteValue() != 0);
+                default -> throw new AssertionError(f.kind());
+            }
+            return true;
+        }
+
+        Class<?> type = f.rawType();
+        if (type == int[].class && tag instanceof NbtIntArray ints) {
+            f.set(target, ints.getIntArray().clone());
+        } else if (type == long[].class && tag instanceof NbtLongArray longs) {
+            f.set(target, longs.getLongArray().clone());
+        } else if (type == byte[].class && tag instanceof NbtByteArray bytes) {
+            f.set(target, bytes.getByteArray().clone());
+        } else if (type == IntList.class && tag instanceof NbtIntArray ints) {
+            f.set(target, IntList.of(ints.getIntArray()));
+        } else if (type == LongList.class && tag instanceof NbtLongArray longs) {
+            f.set(target, LongList.of(longs.getLongArray()));
+        } else {
+            f.set(target, adapter.fromJsonTree(toJson(tag, strings)));
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeField(NbtCompound root, Object instance, FieldSchema f, TypeAdapter<?> adapter) {
+        FieldAccessor a = f.accessor();
+        String name = f.name();
+        switch (f.kind()) {
+            case INT -> root.putInt(name, a.getInt(instance));
+            case LONG -> root.putLong(name, a.getLong(instance));
+            case DOUBLE -> root.putDouble(name, a.getDouble(instance));
+            case FLOAT -> root.putFloat(name, a.getFloat(instance));
+            case BOOLEAN -> root.putBoolean(name, a.getBoolean(instance));
+            case OBJECT -> {
+                Object value = f.get(instance);
+                if (value == null) return;
+
+                if (value instanceof int[] ints) {
+                    root.putIntArray(name, ints.clone());
+                } else if (value instanceof long[] longs) {
+                    root.putLongArray(name, longs.clone());
+                } else if (value instanceof byte[] bytes) {
+                    root.putByteArray(name, bytes.clone());
+                } else if (value instanceof IntList ints) {
+                    root.putIntArray(name, ints.toArray());
+                } else if (value instanceof LongList longs) {
+                    root.putLongArray(name, longs.toArray());
+                } else {
+                    NbtElement tag = toNbt(((TypeAdapter<Object>) adapter).toJsonTree(value));
+                    if (tag != null) root.put(name, tag);
+                }
+            }
+        }
+    }
+
+    /** @return the tag for {@code el}, or {@code null} for a JSON null */
+    private static NbtElement toNbt(JsonElement el) {
+        if (el == null || el.isJsonNull()) return null;
+
+        if (el instanceof JsonObject o) {
+            NbtCompound c = new NbtCompound();
+            for (Map.Entry<String, JsonElement> e : o.entrySet()) {
+                NbtElement v = toNbt(e.getValue());
+                if (v != null) c.put(e.getKey(), v);
+            }
+            return c;
+        }
+
+        if (el instanceof JsonArray a) return arrayToNbt(a);
+
+        JsonPrimitive p = el.getAsJsonPrimitive();
+        if (p.isBoolean()) return NbtByte.of(p.getAsBoolean());
+        if (p.isString()) return NbtString.of(p.getAsString());
+        return numberToNbt(p.getAsNumber());
+    }
+
+    private static NbtElement arrayToNbt(JsonArray a) {
+        boolean ints = true;
+        boolean longs = true;
+        for (JsonElement e : a) {
+            Long l = integral(e);
+            if (l == null) {
+                ints = longs = false;
+                break;
+            }
+            if ((int) l.longValue() != l) ints = false;
+        }
+        if (a.size() > 0 && ints) {
+            int[] values = new int[a.size()];
+            for (int i = 0; i < values.length; i++) values[i] = a.get(i).getAsInt();
+            return new NbtIntArray(values);
+        }
+        if (a.size() > 0 && longs) {
+            long[] values = new long[a.size()];
+            for (int i = 0; i < values.length; i++) values[i] = a.get(i).getAsLong();
+            return new NbtLongArray(values);
+        }
+
+        NbtList list = new NbtList();
+        byte type = -1;
+        boolean uniform = true;
+        for (JsonElement e : a) {
+            NbtElement tag = toNbt(e);
+            if (tag == null || (type >= 0 && tag.getType() != type) || isBoxed(tag)) {
+                uniform = false;
+                break;
+            }
+            type = tag.getType();
+            list.add(tag);
+        }
+        if (uniform) return list;
+
+        NbtList boxed = new NbtList();
+        for (JsonElement e : a) {
+            NbtCompound box = new NbtCompound();
+            NbtElement tag = toNbt(e);
+            if (tag != null) box.put(BOXED, tag);
+            boxed.add(box);
+        }
+        return boxed;
+    }
+
+    /* integer value of a JSON number that is not a floating-point type, or null */
+    private static Long integral(JsonElement e) {
+        if (!(e instanceof JsonPrimitive p) || !p.isNumber()) return null;
+        Number n = p.getAsNumber();
+        if (n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte) return n.longValue();
+        if (n instanceof Double || n instanceof Float || n instanceof BigDecimal) return null;
+        try {
+            return Long.parseLong(n.toString());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static NbtElement numberToNbt(Number n) {
+        if (n instanceof Integer i) return NbtInt.of(i);
+        // Gson's tree writer stores every integral value as a Long, whatever the field type
+        if (n instanceof Long || n instanceof Short || n instanceof Byte) {
+            long l = n.longValue();
+            return (int) l == l ? NbtInt.of((int) l) : NbtLong.of(l);
+        }
+        if (n instanceof Double d) return NbtDouble.of(d);
+        if (n instanceof Float f) return NbtFloat.of(f);
+        if (n instanceof BigInteger b && b.bitLength() < 64) return NbtLong.of(b.longValue());
+
+        // lazily parsed or arbitrary-precision numbers: keep the exact text when no tag holds it
+        String text = n.toString();
+        try {
+            long l = Long.parseLong(text);
+            return (int) l == l ? NbtInt.of((int) l) : NbtLong.of(l);
+        } catch (NumberFormatException ignore) {
+            // not an integer
+        }
+        try {
+            double d = Double.parseDouble(text);
+            if (new BigDecimal(text).compareTo(new BigDecimal(d)) == 0) return NbtDouble.of(d);
+        } catch (NumberFormatException ignore) {
+            // not a finite decimal
+        }
+        return NbtString.of(text);
+    }
+
+    /* a list entry written by the boxed form: a compound that is empty or holds only the empty key */
+    private static boolean isBoxed(NbtElement tag) {
+        return tag instanceof NbtCompound c && (c.getSize() == 0 || (c.getSize() == 1 && c.contains(BOXED)));
+    }
+
+    private static JsonElement toJson(NbtElement tag, StringDeduplicator strings) {
+        if (tag instanceof NbtCompound c) {
+            JsonObject o = new JsonObject();
+            for (String key : c.getKeys()) o.add(strings == null ? key : strings.canonicalizeName(key), toJson(c.get(key), strings));
+            return o;
+        }
+
+        if (tag instanceof NbtList list) {
+            JsonArray a = new JsonArray(list.size());
+            boolean boxed = !list.isEmpty();
+            for (NbtElement e : list) {
+                if (!isBoxed(e)) {
+                    boxed = false;
+                    break;
+                }
+            }
+            for (NbtElement e : list) {
+                if (boxed) {
+                    NbtElement inner = ((NbtCompound) e).get(BOXED);
+                    a.add(inner == null ? null : toJson(inner, strings));
+                } else {
+                    a.add(toJson(e, strings));
+                }
+            }
+            return a;
+        }
+
+        if (tag instanceof NbtIntArray ints) {
+            JsonArray a = new JsonArray(ints.size());
+            for (int v : ints.getIntArray()) a.add(v);
+            return a;
+        }
+        if (tag instanceof NbtLongArray longs) {
+            JsonArray a = new JsonArray(longs.size());
+            for (long v : longs.getLongArray()) a.add(v);
+            return a;
+        }
+        if (tag instanceof NbtByteArray bytes) {
+            JsonArray a = new JsonArray(bytes.size());
+            for (byte v : bytes.getByteArray()) a.add(v);
+            return a;
+        }
+
+        if (tag instanceof NbtByte b) return new JsonPrimitive(b.byteValue() != 0);
+        if (tag instanceof AbstractNbtNumber n) return new JsonPrimitive(n.numberValue());
+        if (tag instanceof NbtString s) return new JsonPrimitive(canonical(s.asString(), strings));
+        throw new IllegalStateException("Unsupported tag type " + tag.getType());
+    }
+
+    private static String canonical(String s, StringDeduplicator strings) {
+        return strings == null ? s : strings.canonicalize(s);
+    }
+}
@@ -0,0 +1,151 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads and writes {@code int[]}, {@code long[]}, {@code double[]} and
+ * {@code byte[]} element by element without boxing.
+ *
+ * <p>Gson's array adapter goes through the boxed element adapter and
+ * {@link java.lang.reflect.Array#set}; large arrays in biome/dimension configs
+ * made that noticeable. The JSON produced and accepted is the same.</p>
+ */
+final class PrimitiveArrayAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<?> raw = type.getRawType();
+        if (raw == int[].class) return (TypeAdapter<T>) INT_ARRAY;
+        if (raw == long[].class) return (TypeAdapter<T>) LONG_ARRAY;
+        if (raw == double[].class) return (TypeAdapter<T>) DOUBLE_ARRAY;
+        if (raw == byte[].class) return (TypeAdapter<T>) BYTE_ARRAY;
+        return null;
+    }
+
+    static final TypeAdapter<int[]> INT_ARRAY = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, int[] value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (int v : value) out.value(v);
+            out.endArray();
+        }
+
+        @Override
+        public int[] read(JsonReader in) throws IOException {
+            if (CodecSupport.nextIsNull(in)) return null;
+            int[] values = new int[8];
+            int size = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                if (size == values.length) values = Arrays.copyOf(values, size * 2);
+                values[size++] = in.nextInt();
+            }
+            in.endArray();
+            return Arrays.copyOf(values, size);
+        }
+    };
+
+    static final TypeAdapter<long[]> LONG_ARRAY = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, long[] value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (long v : value) out.value(v);
+            out.endArray();
+        }
+
+        @Override
+        public long[] read(JsonReader in) throws IOException {
+            if (CodecSupport.nextIsNull(in)) return null;
+            long[] values = new long[8];
+            int size = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                if (size == values.length) values = Arrays.copyOf(values, size * 2);
+                values[size++] = in.nextLong();
+            }
+            in.endArray();
+            return Arrays.copyOf(values, size);
+        }
+    };
+
+    static final TypeAdapter<double[]> DOUBLE_ARRAY = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, double[] value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (double v : value) CodecSupport.writeDouble(out, v);
+            out.endArray();
+        }
+
+        @Override
+        public double[] read(JsonReader in) throws IOException {
+            if (CodecSupport.nextIsNull(in)) return null;
+            double[] values = new double[8];
+            int size = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                if (size == values.length) values = Arrays.copyOf(values, size * 2);
+                values[size++] = in.nextDouble();
+            }
+            in.endArray();
+            return Arrays.copyOf(values, size);
+        }
+    };
+
+    static final TypeAdapter<byte[]> BYTE_ARRAY = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, byte[] value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (byte v : value) out.value(v);
+            out.endArray();
+        }
+
+        @Override
+        public byte[] read(JsonReader in) throws IOException {
+            if (CodecSupport.nextIsNull(in)) return null;
+            byte[] values = new byte[8];
+            int size = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                if (size == values.length) values = Arrays.copyOf(values, size * 2);
+                values[size++] = readByte(in);
+            }
+            in.endArray();
+            return Arrays.copyOf(values, size);
+        }
+    };
+
+    /* Gson's byte adapter also accepts 128..255 so unsigned values round-trip */
+    private static byte readByte(JsonReader in) throws IOException {
+        int value = in.nextInt();
+        if (value > 255 || value < Byte.MIN_VALUE) {
+            throw new JsonSyntaxException("Lossy conversion from " + value + " to byte; at path " + in.getPath());
+        }
+        return (byte) value;
+    }
+}
@@ -0,0 +1,155 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import net.ninjadev.ninjaconfig.collection.IntList;
+import net.ninjadev.ninjaconfig.collection.LongList;
+import net.ninjadev.ninjaconfig.collection.StringIntMap;
+
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * Streams the primitive-specialised collection types straight between JSON
+ * and their backing arrays.
+ *
+ * <p>{@link IntList} and {@link LongList} are JSON arrays of numbers,
+ * {@link StringIntMap} is a JSON object with number values and
+ * {@link BitSet} is a JSON array of the indices of its set bits (Gson's own
+ * adapter writes one 0/1 element per bit instead).</p>
+ */
+final class PrimitiveCollectionAdapterFactory implements TypeAdapterFactory {
+
+    /**
+     * @param type runtime class of a value
+     * @return true when this factory provides the adapter for {@code type}
+     */
+    static boolean supports(Class<?> type) {
+        return type == IntList.class || type == LongList.class
+                || type == StringIntMap.class || type == BitSet.class;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<?> raw = type.getRawType();
+        if (raw == IntList.class) return (TypeAdapter<T>) INT_LIST;
+        if (raw == LongList.class) return (TypeAdapter<T>) LONG_LIST;
+        if (raw == StringIntMap.class) return (TypeAdapter<T>) STRING_INT_MAP;
+        if (raw == BitSet.class) return (TypeAdapter<T>) BIT_SET;
+        return null;
+    }
+
+    private static final TypeAdapter<IntList> INT_LIST = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, IntList value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (int i = 0, n = value.size(); i < n; i++) out.value(value.get(i));
+            out.endArray();
+        }
+
+        @Override
+        public IntList read(JsonReader in) throws IOException {
+            if (CodecSupport.nextIsNull(in)) return null;
+            IntList list = new IntList();
+            in.beginArray();
+            while (in.hasNext()) list.add(in.nextInt());
+            in.endArray();
+            return list;
+        }
+    };
+
+    private static final TypeAdapter<LongList> LONG_LIST = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, LongList value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (int i = 0, n = value.size(); i < n; i++) out.value(value.get(i));
+            out.endArray();
+        }
+
+        @Override
+        public LongList read(JsonReader in) throws IOException {
+            if (CodecSupport.nextIsNull(in)) return null;
+            LongList list = new LongList();
+            in.beginArray();
+            while (in.hasNext()) list.add(in.nextLong());
+            in.endArray();
+            return list;
+        }
+    };
+
+    private static final TypeAdapter<StringIntMap> STRING_INT_MAP = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, StringIntMap value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            for (int i = 0, n = value.size(); i < n; i++) {
+                out.name(value.keyAt(i)).value(value.valueAt(i));
+            }
+            out.endObject();
+        }
+
+        @Override
+        public StringIntMap read(JsonReader in) throws IOException {
+            if (CodecSupport.nextIsNull(in)) return null;
+            StringIntMap map = new StringIntMap();
+            in.beginObject();
+            while (in.hasNext()) {
+                String key = in.nextName();
+                if (!map.put(key, in.nextInt())) {
+                    throw new JsonSyntaxException("duplicate key: " + key);
+                }
+            }
+            in.endObject();
+            return map;
+        }
+    };
+
+    private static final TypeAdapter<BitSet> BIT_SET = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, BitSet value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (int i = value.nextSetBit(0); i >= 0; i = value.nextSetBit(i + 1)) {
+                out.value(i);
+                if (i == Integer.MAX_VALUE) break;
+            }
+            out.endArray();
+        }
+
+        @Override
+        public BitSet read(JsonReader in) throws IOException {
+            if (CodecSupport.nextIsNull(in)) return null;
+            BitSet bits = new BitSet();
+            in.beginArray();
+            while (in.hasNext()) {
+                int index = in.nextInt();
+                if (index < 0) {
+                    throw new JsonSyntaxException("Negative bit index " + index + " at path " + in.getPath());
+                }
+                bits.set(index);
+            }
+            in.endArray();
+            return bits;
+        }
+    };
+}
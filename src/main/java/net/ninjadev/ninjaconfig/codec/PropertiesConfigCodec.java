@@ -0,0 +1,612 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import net.ninjadev.ninjaconfig.annotation.Comment;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codec for flat configs in the {@code .properties} format. Each
+ * {@link Comment} is written as {@code #} lines above its key, and the fields
+ * of nested objects are written as dotted keys:
+ *
+ * <pre>{@code
+ * # Maximum number of homes per player
+ * maxHomes=3
+ * spawn.world=minecraft\:overworld
+ * spawn.y=64
+ * }</pre>
+ *
+ * <p>Files are parsed with the syntax of {@link java.util.Properties#load(java.io.Reader)}
+ * (comment lines, {@code =}, {@code :} or whitespace separators, escapes and
+ * line continuations) but read as UTF-8. The parser works on the decoded
+ * characters directly: keys are looked up in a per-class table without
+ * creating a string, and {@code int}, {@code long} and {@code boolean} values
+ * are parsed in place, so a file of such fields loads without allocating per
+ * line.</p>
+ *
+ * <p>Strings, boxed primitives and enums are written as plain text. Values
+ * that do not fit one line of text, such as lists and maps, are written as
+ * compact JSON and read back through the same Gson adapters as the JSON
+ * codecs. Null values are omitted. Nested objects are flattened by declared
+ * type; a type that refers back to itself is written as JSON instead.</p>
+ */
+public final class PropertiesConfigCodec implements ConfigCodec {
+
+    private final Gson gson = CodecSupport.gsonBuilder().create();
+
+    /* flattened keys resolved once per class */
+    private final ClassValue<Layout> layouts = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return new Layout(type);
+        }
+    };
+
+    /** Create a properties codec. */
+    public PropertiesConfigCodec() {}
+
+    /**
+     * Merge the properties file at {@code file} into {@code target}. Unknown
+     * keys are ignored and a value that cannot be bound is reported as
+     * missing; a file that is not valid UTF-8 is a parse error.
+     *
+     * @param file file to read
+     * @param target target instance to populate
+     * @param <T> concrete type of the target
+     * @return result indicating whether the file existed and if there were missing keys or parse errors
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target) throws IOException {
+        return mergeInto(file, target, null);
+    }
+
+    /**
+     * Merge as {@link #mergeInto(Path, Object)}, canonicalizing decoded
+     * strings through {@code strings}.
+     *
+     * @param file file to read
+     * @param target target instance to populate
+     * @param strings table to canonicalize decoded strings through, or {@code null}
+     * @param <T> concrete type of the target
+     * @return result as for {@link #mergeInto(Path, Object)}
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target, StringDeduplicator strings) throws IOException {
+        if (!Files.exists(file)) {
+            return new MergeResult(false, true, false);
+        }
+
+        final CharBuffer chars;
+        try {
+            chars = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(Files.readAllBytes(file)));
+        } catch (CharacterCodingException ex) {
+            return new MergeResult(true, true, true);
+        }
+
+        Layout layout = layouts.get(target.getClass());
+        boolean[] seen = new boolean[layout.leaves.length];
+        boolean missing = false;
+
+        Parser p = new Parser(chars);
+        while (p.next()) {
+            Leaf leaf = layout.find(p.keyChars, p.keyStart, p.keyEnd);
+            if (leaf == null) continue;
+            try {
+                p.unescapeValue();
+                leaf.bind(target, p.valueChars, p.valueStart, p.valueEnd, strings);
+                seen[leaf.index] = true;
+            } catch (RuntimeException ex) {
+                missing = true;
+            }
+        }
+
+        for (boolean s : seen) {
+            if (!s) missing = true;
+        }
+        return new MergeResult(true, missing, false);
+    }
+
+    /**
+     * Write {@code instance} to {@code file} in the properties format.
+     *
+     * @param file destination file
+     * @param instance instance to serialize
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(Path file, Object instance) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out, instance);
+        }
+    }
+
+    /**
+     * Write {@code instance} as UTF-8 to {@code out}; see {@link #write(Path, Object)}.
+     *
+     * @param out destination stream, flushed but not closed
+     * @param instance instance to serialize
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(OutputStream out, Object instance) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        for (Leaf leaf : layouts.get(instance.getClass()).leaves) {
+            leaf.write(w, instance);
+        }
+        w.flush();
+    }
+
+    /** @return ".properties" */
+    @Override
+    public String defaultExtension() { return ".properties"; }
+
+    /**
+     * @return true when fields of {@code type} are flattened into dotted keys
+     *         rather than written as one value
+     */
+    private static boolean isNested(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && !type.isEnum() && !type.isInterface() && !type.isRecord()
+                && !Modifier.isAbstract(type.getModifiers())
+                && !Number.class.isAssignableFrom(type) && type != String.class && type != Boolean.class
+                && type != Character.class && !Iterable.class.isAssignableFrom(type) && !Map.class.isAssignableFrom(type)
+                && !PrimitiveCollectionAdapterFactory.supports(type)
+                && !ClassSchema.of(type).fields().isEmpty();
+    }
+
+    /** The flattened keys of one class, with a lookup table by key characters. */
+    private final class Layout {
+        final Leaf[] leaves;
+        private final Leaf[] table;
+        private final int mask;
+
+        Layout(Class<?> type) {
+            List<Leaf> list = new ArrayList<>();
+            flatten(type, "", new FieldSchema[0], null, new ArrayDeque<>(), list);
+            this.leaves = list.toArray(new Leaf[0]);
+
+            int capacity = Integer.highestOneBit(Math.max(leaves.length, 1) * 2) * 2;
+            this.table = new Leaf[capacity];
+            this.mask = capacity - 1;
+            for (Leaf leaf : leaves) {
+                int i = spread(leaf.key.hashCode()) & mask;
+                while (table[i] != null) i = (i + 1) & mask;
+                table[i] = leaf;
+            }
+        }
+
+        private void flatten(Class<?> type, String prefix, FieldSchema[] parents, String[] groupComment,
+                             Deque<Class<?>> path, List<Leaf> out) {
+            path.push(type);
+            for (FieldSchema f : ClassSchema.of(type).fields()) {
+                FieldSchema[] chain = Arrays.copyOf(parents, parents.length + 1);
+                chain[parents.length] = f;
+                String[] comment = concat(groupComment, f.comment() != null ? f.comment().split("\\R", -1) : null);
+                groupComment = null;
+
+                if (isNested(f.rawType()) && !path.contains(f.rawType())) {
+                    int before = out.size();
+                    flatten(f.rawType(), prefix + f.name() + ".", chain, comment, path, out);
+                    if (out.size() == before && comment != null) groupComment = comment;
+                } else {
+                    TypeAdapter<?> adapter = f.kind() == FieldSchema.Kind.OBJECT
+                            ? gson.getAdapter(TypeToken.get(f.genericType())) : null;
+                    out.add(new Leaf(prefix + f.name(), chain, comment, out.size(), adapter));
+                }
+            }
+            path.pop();
+        }
+
+        /** @return the leaf with the key in {@code chars[start, end)}, or {@code null} */
+        Leaf find(char[] chars, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) h = 31 * h + chars[i];
+            for (int i = spread(h) & mask; table[i] != null; i = (i + 1) & mask) {
+                String key = table[i].key;
+                if (key.length() != end - start) continue;
+                int j = 0;
+                while (j < key.length() && key.charAt(j) == chars[start + j]) j++;
+                if (j == key.length()) return table[i];
+            }
+            return null;
+        }
+
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+
+        private static String[] concat(String[] a, String[] b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            String[] c = Arrays.copyOf(a, a.length + b.length);
+            System.arraycopy(b, 0, c, a.length, b.length);
+            return c;
+        }
+    }
+
+    /** One key: the chain of fields from the config object down to a value. */
+    private final class Leaf {
+        final String key;
+        final int index;
+        private final FieldSchema[] chain;
+        private final FieldSchema field;
+        /* comment lines of the field and of the nested objects it is the first key of */
+        private final String[] comment;
+        private final TypeAdapter<?> adapter;
+        /* reused by the primitive parsers, which take a CharSequence */
+        private final CharSequenceView view = new CharSequenceView();
+
+        Leaf(String key, FieldSchema[] chain, String[] comment, int index, TypeAdapter<?> adapter) {
+            this.key = key;
+            this.chain = chain;
+            this.field = chain[chain.length - 1];
+            this.comment = comment;
+            this.index = index;
+            this.adapter = adapter;
+        }
+
+        /* assign the value in chars[start, end) to this key's field of target, creating missing parents */
+        void bind(Object target, char[] chars, int start, int end, StringDeduplicator strings) {
+            Object owner = target;
+            for (int i = 0; i < chain.length - 1; i++) {
+                FieldSchema parent = chain[i];
+                Object next = parent.get(owner);
+                if (next == null) {
+                    next = gson.fromJson("{}", parent.rawType());
+                    parent.set(owner, next);
+                }
+                owner = next;
+            }
+
+            FieldAccessor a = field.accessor();
+            if (field.kind() == FieldSchema.Kind.OBJECT) {
+                field.set(owner, readObject(new String(chars, start, end - start), strings));
+                return;
+            }
+
+            // numbers and booleans ignore trailing whitespace
+            while (end > start && Character.isWhitespace(chars[end - 1])) end--;
+            switch (field.kind()) {
+                case INT -> a.setInt(owner, (int) parseLong(chars, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE));
+                case LONG -> a.setLong(owner, parseLong(chars, start, end, Long.MIN_VALUE, Long.MAX_VALUE));
+                case DOUBLE -> a.setDouble(owner, Double.parseDouble(new String(chars, start, end - start)));
+                case FLOAT -> a.setFloat(owner, (float) Double.parseDouble(new String(chars, start, end - start)));
+                case BOOLEAN -> a.setBoolean(owner, parseBoolean(chars, start, end));
+                default -> throw new AssertionError(field.kind());
+            }
+        }
+
+        /* write the comment and key=value lines of this key, unless a parent or the value is null */
+        void write(Writer out, Object instance) throws IOException {
+            Object owner = instance;
+            for (int i = 0; i < chain.length - 1 && owner != null; i++) owner = chain[i].get(owner);
+            if (owner == null) return;
+
+            final String text;
+            FieldAccessor a = field.accessor();
+            switch (field.kind()) {
+                case INT -> text = Integer.toString(a.getInt(owner));
+                case LONG -> text = Long.toString(a.getLong(owner));
+                case DOUBLE -> text = Double.toString(a.getDouble(owner));
+                case FLOAT -> text = Float.toString(a.getFloat(owner));
+                case BOOLEAN -> text = Boolean.toString(a.getBoolean(owner));
+                default -> text = writeObject(field.get(owner));
+            }
+            if (text == null) return;
+
+            if (comment != null) {
+                for (String line : comment) {
+                    out.write("# ");
+                    out.write(line);
+                    out.write('\n');
+                }
+            }
+            writeEscaped(out, key, true);
+            out.write('=');
+            writeEscaped(out, text, false);
+            out.write('\n');
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object readObject(String text, StringDeduplicator strings) {
+            if (field.rawType() == String.class) return strings == null ? text : strings.canonicalize(text);
+            try {
+                if (!text.isEmpty() && (text.charAt(0) == '[' || text.charAt(0) == '{' || text.charAt(0) == '"')) {
+                    JsonReader in = new JsonReader(new StringReader(text));
+                    in.setLenient(true);
+                    if (strings == null) return adapter.read(in);
+                    return adapter.fromJsonTree(CodecSupport.canonicalize(JsonParser.parseReader(in), strings));
+                }
+                return adapter.fromJsonTree(new JsonPrimitive(text));
+            } catch (IOException ex) {
+                throw new IllegalArgumentException(ex);
+            }
+        }
+
+        /** @return the text of a non-primitive value, or {@code null} when there is nothing to write */
+        @SuppressWarnings("unchecked")
+        private String writeObject(Object value) {
+            if (value == null) return null;
+            if (value instanceof String s) return s;
+
+            JsonElement el = ((TypeAdapter<Object>) adapter).toJsonTree(value);
+            if (el.isJsonNull()) return null;
+            if (el.isJsonPrimitive() && el.getAsJsonPrimitive().isString()) {
+                String s = el.getAsString();
+                // text that would read back as JSON is written quoted
+                boolean json = !s.isEmpty() && (s.charAt(0) == '[' || s.charAt(0) == '{' || s.charAt(0) == '"');
+                return json ? el.toString() : s;
+            }
+            return el.isJsonPrimitive() ? el.getAsString() : el.toString();
+        }
+
+        /* decimal integer in range, or a float with an integral value as the JSON readers accept */
+        private long parseLong(char[] chars, int start, int end, long min, long max) {
+            long l;
+            try {
+                l = Long.parseLong(view.of(chars), start, end, 10);
+            } catch (NumberFormatException ex) {
+                double d = Double.parseDouble(new String(chars, start, end - start));
+                l = (long) d;
+                if (l != d || d == 0x1p63) throw ex;
+            }
+            if (l < min || l > max) throw new NumberFormatException("Value out of range: " + l);
+            return l;
+        }
+
+        private static boolean parseBoolean(char[] chars, int start, int end) {
+            if (regionEquals("true", chars, start, end)) return true;
+            if (regionEquals("false", chars, start, end)) return false;
+            throw new IllegalArgumentException("Not a boolean");
+        }
+
+        private static boolean regionEquals(String s, char[] chars, int start, int end) {
+            if (end - start != s.length()) return false;
+            for (int i = 0; i < s.length(); i++) {
+                if (Character.toLowerCase(chars[start + i]) != s.charAt(i)) return false;
+            }
+            return true;
+        }
+    }
+
+    /** {@link CharSequence} over a char array, rebound without allocating. */
+    private static final class CharSequenceView implements CharSequence {
+        private char[] chars;
+
+        CharSequenceView of(char[] chars) {
+            this.chars = chars;
+            return this;
+        }
+
+        @Override public int length() { return chars.length; }
+        @Override public char charAt(int index) { return chars[index]; }
+        @Override public CharSequence subSequence(int start, int end) { return new String(chars, start, end - start); }
+        @Override public String toString() { return new String(chars); }
+    }
+
+    /**
+     * Escape {@code s} as {@link java.util.Properties#store} does, except that
+     * characters outside ASCII are written as they are.
+     */
+    private static void writeEscaped(Writer out, String s, boolean key) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\' -> out.write("\\\\");
+                case '\t' -> out.write("\\t");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\f' -> out.write("\\f");
+                case ' ' -> out.write(key || i == 0 ? "\\ " : " ");
+                case '=', ':', '#', '!' -> {
+                    if (key) out.write('\\');
+                    out.write(c);
+                }
+                default -> {
+                    if (c < 0x20 || c == 0x7f) out.write(String.format("\\u%04x", (int) c));
+                    else out.write(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits decoded properties text into key/value pairs in place. Keys and
+     * values without escapes are reported as ranges of the input; those with
+     * escapes are unescaped into scratch buffers first.
+     */
+    private static final class Parser {
+        private final char[] in;
+        private final int length;
+        private int pos;
+
+        /* current key, in the input or in keyScratch */
+        char[] keyChars;
+        int keyStart;
+        int keyEnd;
+
+        /* current value, in the input until unescapeValue() moves it to valueScratch */
+        char[] valueChars;
+        int valueStart;
+        int valueEnd;
+        private boolean valueEscaped;
+
+        private char[] keyScratch = new char[64];
+        private char[] valueScratch = new char[256];
+        private int unescapedLength;
+
+        Parser(CharBuffer chars) {
+            this.in = chars.array();
+            this.pos = chars.arrayOffset() + chars.position();
+            this.length = chars.arrayOffset() + chars.limit();
+        }
+
+        /**
+         * Advance to the next key/value pair; returns false at the end of the
+         * input. Lines whose key has a malformed {@code \\u} escape are
+         * skipped, as their key cannot match a field.
+         */
+        boolean next() {
+            while (nextLine()) {
+                if (keyChars != null) return true;
+            }
+            return false;
+        }
+
+        /* read the next logical line; keyChars is null when its key is malformed */
+        private boolean nextLine() {
+            // skip blank lines, leading whitespace and comment lines
+            while (pos < length) {
+                char c = in[pos];
+                if (c == ' ' || c == '\t' || c == '\f' || c == '\r' || c == '\n' || c == '\uFEFF') {
+                    pos++;
+                } else if (c == '#' || c == '!') {
+                    while (pos < length && in[pos] != '\n' && in[pos] != '\r') pos++;
+                } else {
+                    break;
+                }
+            }
+            if (pos >= length) return false;
+
+            int start = pos;
+            boolean escaped = false;
+            while (pos < length) {
+                char c = in[pos];
+                if (c == '\\') {
+                    escaped = true;
+                    pos = skipEscape(pos);
+                } else if (c == '=' || c == ':' || c == ' ' || c == '\t' || c == '\f' || c == '\r' || c == '\n') {
+                    break;
+                } else {
+                    pos++;
+                }
+            }
+            int end = Math.min(pos, length);
+            if (escaped) {
+                try {
+                    keyScratch = unescape(start, end, keyScratch);
+                    keyChars = keyScratch;
+                } catch (IllegalArgumentException ex) {
+                    keyChars = null;
+                }
+                keyStart = 0;
+                keyEnd = unescapedLength;
+            } else {
+                keyChars = in;
+                keyStart = start;
+                keyEnd = end;
+            }
+
+            // separator: whitespace, then at most one '=' or ':', then whitespace
+            skipSpaces();
+            if (pos < length && (in[pos] == '=' || in[pos] == ':')) {
+                pos++;
+                skipSpaces();
+            }
+
+            valueStart = pos;
+            valueEscaped = false;
+            while (pos < length && in[pos] != '\n' && in[pos] != '\r') {
+                if (in[pos] == '\\') {
+                    valueEscaped = true;
+                    pos = skipEscape(pos);
+                } else {
+                    pos++;
+                }
+            }
+            valueEnd = Math.min(pos, length);
+            valueChars = in;
+            return true;
+        }
+
+        /** Replace the escapes in the current value, if it has any. */
+        void unescapeValue() {
+            if (!valueEscaped) return;
+            valueScratch = unescape(valueStart, valueEnd, valueScratch);
+            valueChars = valueScratch;
+            valueStart = 0;
+            valueEnd = unescapedLength;
+            valueEscaped = false;
+        }
+
+        private void skipSpaces() {
+            while (pos < length && (in[pos] == ' ' || in[pos] == '\t' || in[pos] == '\f')) pos++;
+        }
+
+        /* position after the escape at i; an escaped line break continues the logical line */
+        private int skipEscape(int i) {
+            i++;
+            if (i >= length) return i;
+            char c = in[i++];
+            if (c == '\r' && i < length && in[i] == '\n') i++;
+            if (c == '\r' || c == '\n') {
+                while (i < length && (in[i] == ' ' || in[i] == '\t' || in[i] == '\f')) i++;
+            }
+            return i;
+        }
+
+        /* unescape in[start, end) into dst, grown as needed; the length is left in unescapedLength */
+        private char[] unescape(int start, int end, char[] dst) {
+            if (dst.length < end - start) dst = new char[end - start];
+            int n = 0;
+            for (int i = start; i < end; ) {
+                char c = in[i++];
+                if (c != '\\') {
+                    dst[n++] = c;
+                    continue;
+                }
+                if (i >= end) break;
+                c = in[i++];
+                switch (c) {
+                    case 't' -> dst[n++] = '\t';
+                    case 'n' -> dst[n++] = '\n';
+                    case 'r' -> dst[n++] = '\r';
+                    case 'f' -> dst[n++] = '\f';
+                    case 'u' -> {
+                        if (end - i < 4) throw new IllegalArgumentException("Malformed \\uxxxx encoding");
+                        int v = 0;
+                        for (int k = 0; k < 4; k++) {
+                            int d = Character.digit(in[i++], 16);
+                            if (d < 0) throw new IllegalArgumentException("Malformed \\uxxxx encoding");
+                            v = v << 4 | d;
+                        }
+                        dst[n++] = (char) v;
+                    }
+                    case '\r', '\n' -> {
+                        if (c == '\r' && i < end && in[i] == '\n') i++;
+                        while (i < end && (in[i] == ' ' || in[i] == '\t' || in[i] == '\f')) i++;
+                    }
+                    default -> dst[n++] = c;
+                }
+            }
+            unescapedLength = n;
+            return dst;
+        }
+    }
+}
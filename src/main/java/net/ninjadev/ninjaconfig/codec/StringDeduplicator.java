@@ -0,0 +1,134 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Table of canonical {@link String} instances shared by every config read
+ * through it.
+ *
+ * <p>Configs often repeat the same strings (namespaces, tag and biome ids);
+ * each decoded copy is otherwise retained separately. A table passed to
+ * {@link ConfigCodec#mergeInto(java.nio.file.Path, Object, StringDeduplicator)}
+ * replaces the string values and member names the codec decodes by the first
+ * equal instance seen. {@code ConfigManager} passes its table to every load
+ * when string deduplication is enabled. Tables are thread-safe.</p>
+ *
+ * <p>The table holds its strings weakly: a canonical instance is dropped once
+ * no config references it any more, so strings of values removed by a reload
+ * do not accumulate.</p>
+ */
+public final class StringDeduplicator {
+
+    /**
+     * Counters of a deduplication table.
+     *
+     * @param lookups strings passed through the table
+     * @param duplicates lookups answered with an existing instance
+     * @param distinct canonical strings held by the table
+     * @param bytesSaved estimated heap no longer retained by the discarded
+     *                   duplicates of string values; member names are not
+     *                   counted, since most are field names that no config
+     *                   retains
+     */
+    public record Stats(long lookups, long duplicates, int distinct, long bytesSaved) {}
+
+    private final ConcurrentHashMap<Entry, Entry> table = new ConcurrentHashMap<>();
+    private final ReferenceQueue<String> cleared = new ReferenceQueue<>();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /** Create an empty table. */
+    public StringDeduplicator() {}
+
+    /**
+     * @param s string value to canonicalize, may be {@code null}
+     * @return the canonical instance equal to {@code s}
+     */
+    public String canonicalize(String s) {
+        return canonicalize(s, true);
+    }
+
+    /**
+     * Canonicalize a member name. Names are shared like values, so map keys
+     * are deduplicated, but are not counted in {@link Stats#bytesSaved()}.
+     *
+     * @param name member name to canonicalize, may be {@code null}
+     * @return the canonical instance equal to {@code name}
+     */
+    public String canonicalizeName(String name) {
+        return canonicalize(name, false);
+    }
+
+    /** @return a snapshot of the counters */
+    public Stats stats() {
+        expunge();
+        return new Stats(lookups.sum(), duplicates.sum(), table.size(), bytesSaved.sum());
+    }
+
+    private String canonicalize(String s, boolean stored) {
+        if (s == null) return null;
+        expunge();
+        lookups.increment();
+
+        Entry entry = new Entry(s, cleared);
+        while (true) {
+            Entry existing = table.putIfAbsent(entry, entry);
+            if (existing == null) return s;
+
+            String canonical = existing.get();
+            if (canonical == null) {
+                table.remove(existing, existing);
+                continue;
+            }
+            if (canonical != s) {
+                duplicates.increment();
+                if (stored) bytesSaved.add(retainedSize(s));
+            }
+            return canonical;
+        }
+    }
+
+    private void expunge() {
+        for (Reference<? extends String> r; (r = cleared.poll()) != null; ) {
+            table.remove(r, r);
+        }
+    }
+
+    /* String header plus its backing byte[] (LATIN1 or UTF16), 8-byte aligned with compressed oops */
+    private static long retainedSize(String s) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return 24 + ((16L + (long) s.length() * bytesPerChar + 7) & ~7L);
+    }
+
+    /* weak key and value of the table; equal to another entry while both referents are alive and equal */
+    private static final class Entry extends WeakReference<String> {
+        private final int hash;
+
+        Entry(String s, ReferenceQueue<String> queue) {
+            super(s, queue);
+            this.hash = s.hashCode();
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if (!(o instanceof Entry e) || e.hash != hash) return false;
+            String s = get();
+            return s != null && s.equals(e.get());
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import net.ninjadev.ninjaconfig.annotation.Comment;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TOML codec. Each {@link Comment} is written as {@code #} lines above its
+ * key or table header:
+ *
+ * <pre>{@code
+ * # Maximum number of homes per player
+ * maxHomes = 3
+ *
+ * # Where new players appear
+ * [spawn]
+ * world = "minecraft:overworld"
+ *
+ * [[kits]]
+ * name = "starter"
+ * }</pre>
+ *
+ * <p>Objects and maps become tables, with map keys named as in the JSON
+ * codecs, and lists and arrays whose elements are all objects or maps become
+ * arrays of tables; nested values are written the same way, with dotted
+ * header paths. Other values are written inline, with objects inside inline
+ * values as inline tables. Null values are omitted, since TOML has none.</p>
+ *
+ * <p>Files are read by {@link TomlReader}, a streaming tokenizer that
+ * presents the document to the same Gson adapters the JSON codecs use, so
+ * values are bound straight into the target's fields without a document tree
+ * and memory use does not grow with the file. A file whose tables are not
+ * contiguous (a table reopened by a later header or dotted key) is read again
+ * into a tree in which the parts of each table are merged, and bound from
+ * it.</p>
+ */
+public final class TomlConfigCodec implements ConfigCodec {
+
+    private final Gson gson = CodecSupport.gsonBuilder().create();
+
+    /** How values of a runtime class are written. */
+    private enum Shape { INLINE, SEQUENCE, MAP, POJO }
+
+    /**
+     * Resolved write strategy for one runtime class.
+     *
+     * @param adapter Gson adapter used when the value is written inline
+     * @param layout keys and comment lines for {@link Shape#POJO} values
+     */
+    private record Dispatch(Shape shape, TypeAdapter<Object> adapter, Layout layout) {}
+
+    private final ClassValue<Dispatch> dispatch = new ClassValue<>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Dispatch computeValue(Class<?> type) {
+            TypeAdapter<Object> adapter = (TypeAdapter<Object>) gson.getAdapter(type);
+            if (Number.class.isAssignableFrom(type) || type == String.class || type == Boolean.class
+                    || type == Character.class || type.isEnum() || PrimitiveCollectionAdapterFactory.supports(type)
+                    || type.isArray() && type.getComponentType().isPrimitive()) {
+                return new Dispatch(Shape.INLINE, adapter, null);
+            }
+            if (type.isArray() || Iterable.class.isAssignableFrom(type)) return new Dispatch(Shape.SEQUENCE, adapter, null);
+            if (Map.class.isAssignableFrom(type)) return new Dispatch(Shape.MAP, adapter, null);
+            return new Dispatch(Shape.POJO, adapter, new Layout(ClassSchema.of(type)));
+        }
+    };
+
+    /** Create a TOML codec. */
+    public TomlConfigCodec() {}
+
+    /**
+     * Merge the TOML file at {@code file} into {@code target}. A value that
+     * cannot be bound is reported as missing and skipped; a syntax error ends
+     * the merge as a parse error, with the fields bound before it keeping
+     * their values.
+     *
+     * @param file file to read
+     * @param target target instance to populate
+     * @param <T> concrete type of the target
+     * @return result indicating whether the file existed and if there were missing keys or parse errors
+     */
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target) {
+        return mergeInto(file, target, null);
+    }
+
+    /**
+     * Merge as {@link #mergeInto(Path, Object)}, canonicalizing decoded
+     * strings through {@code strings}.
+     *
+     * @param file file to read
+     * @param target target instance to populate
+     * @param strings table to canonicalize decoded strings through, or {@code null}
+     * @param <T> concrete type of the target
+     * @return result as for {@link #mergeInto(Path, Object)}
+     */
+    @Override
+    public <T> MergeResult mergeInto(Path file, T target, StringDeduplicator strings) {
+        if (!Files.exists(file)) {
+            return new MergeResult(false, true, false);
+        }
+
+        ClassSchema schema = ClassSchema.of(target.getClass());
+        TypeAdapter<?>[] adapters = CodecSupport.fieldAdapters(target.getClass());
+        boolean[] seen = new boolean[schema.fields().size()];
+        boolean missing = false;
+
+        try (Reader r = MappedFileReader.open(file, -1)) {
+            TomlReader in = new TomlReader(r, strings);
+            in.beginObject();
+            while (in.hasNext()) {
+                FieldSchema f = schema.field(in.nextName());
+                if (f == null) {
+                    in.skipValue();
+                    continue;
+                }
+                try {
+                    readField(in, target, f, adapters[f.index()]);
+                    seen[f.index()] = true;
+                } catch (RuntimeException ex) {
+                    missing = true;
+                    in.recoverTo(1);
+                }
+            }
+            in.endObject();
+
+            if (in.peek() != JsonToken.END_DOCUMENT) {
+                return new MergeResult(true, true, true);
+            }
+            if (in.reopenedTables()) {
+                return mergeTree(file, target, schema, adapters, strings);
+            }
+        } catch (Exception ex) {
+            return new MergeResult(true, true, true);
+        }
+
+        for (boolean s : seen) {
+            if (!s) missing = true;
+        }
+        return new MergeResult(true, missing, false);
+    }
+
+    /**
+     * Write {@code instance} to {@code file} as TOML.
+     *
+     * @param file destination file
+     * @param instance instance to serialize
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(Path file, Object instance) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out, instance);
+        }
+    }
+
+    /**
+     * Write {@code instance} as UTF-8 to {@code out}; see {@link #write(Path, Object)}.
+     *
+     * @param out destination stream, flushed but not closed
+     * @param instance instance to serialize
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(OutputStream out, Object instance) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        new Emitter(w).writeBody(instance, "");
+        w.flush();
+    }
+
+    /** @return ".toml" */
+    @Override
+    public String defaultExtension() { return ".toml"; }
+
+    /**
+     * Bind a document whose tables are not contiguous: the document is read
+     * again into a tree in which the repeated members of each table are
+     * merged, as TOML defines them, and every field is bound from it.
+     */
+    private static MergeResult mergeTree(Path file, Object target, ClassSchema schema, TypeAdapter<?>[] adapters,
+                                         StringDeduplicator strings) throws IOException {
+        final JsonObject root;
+        try (Reader r = MappedFileReader.open(file, -1)) {
+            root = readMerged(new TomlReader(r, strings)).getAsJsonObject();
+        }
+
+        boolean missing = false;
+        for (FieldSchema f : schema.fields()) {
+            JsonElement value = root.get(f.name());
+            if (value == null) {
+                missing = true;
+                continue;
+            }
+            try {
+                if (f.kind() != FieldSchema.Kind.OBJECT) {
+                    if (!CodecSupport.bindPrimitive(target, f, value)) missing = true;
+                } else {
+                    f.set(target, adapters[f.index()].fromJsonTree(value));
+                }
+            } catch (RuntimeException ex) {
+                missing = true;
+            }
+        }
+        return new MergeResult(true, missing, false);
+    }
+
+    private static JsonElement readMerged(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case BEGIN_OBJECT -> {
+                JsonObject o = new JsonObject();
+                in.beginObject();
+                while (in.hasNext()) {
+                    String name = in.nextName();
+                    mergeMember(o, name, readMerged(in));
+                }
+                in.endObject();
+                return o;
+            }
+            case BEGIN_ARRAY -> {
+                JsonArray a = new JsonArray();
+                in.beginArray();
+                while (in.hasNext()) a.add(readMerged(in));
+                in.endArray();
+                return a;
+            }
+            default -> {
+                return JsonParser.parseReader(in);
+            }
+        }
+    }
+
+    /*
+     * a reopened table extends the table, a reopened array of tables appends
+     * to it, and a subtable of an array of tables belongs to its last element
+     */
+    private static void mergeMember(JsonObject o, String name, JsonElement value) {
+        JsonElement existing = o.get(name);
+        if (existing instanceof JsonArray array && !array.isEmpty()
+                && value instanceof JsonObject && array.get(array.size() - 1) instanceof JsonObject last) {
+            existing = last;
+        }
+        if (existing instanceof JsonObject table && value instanceof JsonObject more) {
+            for (var e : more.entrySet()) mergeMember(table, e.getKey(), e.getValue());
+        } else if (existing instanceof JsonArray array && value instanceof JsonArray more) {
+            array.addAll(more);
+        } else {
+            o.add(name, value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void readField(TomlReader in, Object target, FieldSchema f, TypeAdapter<?> adapter) throws IOException {
+        FieldAccessor a = f.accessor();
+        switch (f.kind()) {
+            case INT -> a.setInt(target, in.nextInt());
+            case LONG -> a.setLong(target, in.nextLong());
+            case DOUBLE -> a.setDouble(target, in.nextDouble());
+            case FLOAT -> a.setFloat(target, (float) in.nextDouble());
+            case BOOLEAN -> a.setBoolean(target, CodecSupport.readBoolean(in));
+            case OBJECT -> f.set(target, ((TypeAdapter<Object>) adapter).read(in));
+        }
+    }
+
+    /** TOML keys and comment lines of one class. */
+    private static final class Layout {
+        final List<FieldSchema> fields;
+        final String[] keys;
+        /* comment lines per field index, null when the field has no comment */
+        final String[][] comments;
+
+        Layout(ClassSchema schema) {
+            this.fields = schema.fields();
+            this.keys = new String[fields.size()];
+            this.comments = new String[fields.size()][];
+            for (FieldSchema f : fields) {
+                keys[f.index()] = key(f.name());
+                if (f.comment() != null) comments[f.index()] = f.comment().split("\\R", -1);
+            }
+        }
+    }
+
+    private static String key(String name) {
+        StringWriter w = new StringWriter();
+        try {
+            TomlValueWriter.writeKey(w, name);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return w.toString();
+    }
+
+    /**
+     * Writes one document. Key/value lines and headers are written straight
+     * to the output; values written inline go through Gson's adapters on a
+     * {@link TomlValueWriter} over the same output.
+     */
+    private final class Emitter {
+        private final Writer out;
+        private final TomlValueWriter values;
+        /* nothing written yet, so the next header needs no blank line before it */
+        private boolean empty = true;
+
+        Emitter(Writer out) {
+            this.out = out;
+            this.values = new TomlValueWriter(out);
+        }
+
+        /**
+         * Write the members of an object or map whose table has path
+         * {@code prefix} (encoded keys joined and ended with {@code .}, empty
+         * for the document): inline members first, then subtables.
+         */
+        void writeBody(Object value, String prefix) throws IOException {
+            Dispatch d = dispatch.get(value.getClass());
+            if (d.shape() == Shape.POJO) {
+                writeFields(value, d.layout(), prefix);
+            } else {
+                writeEntries((Map<?, ?>) value, prefix);
+            }
+        }
+
+        private void writeFields(Object instance, Layout layout, String prefix) throws IOException {
+            for (FieldSchema f : layout.fields) {
+                if (f.kind() != FieldSchema.Kind.OBJECT) {
+                    comment(layout.comments[f.index()]);
+                    out.write(layout.keys[f.index()]);
+                    out.write(" = ");
+                    writePrimitive(instance, f);
+                    newline();
+                    continue;
+                }
+                Object v = f.get(instance);
+                if (v == null || isTable(v) || isTableArray(v)) continue;
+                comment(layout.comments[f.index()]);
+                writeInline(layout.keys[f.index()], v);
+            }
+
+            for (FieldSchema f : layout.fields) {
+                if (f.kind() != FieldSchema.Kind.OBJECT) continue;
+                Object v = f.get(instance);
+                if (v != null) writeTables(layout.comments[f.index()], prefix + layout.keys[f.index()], v);
+            }
+        }
+
+        private void writeEntries(Map<?, ?> map, String prefix) throws IOException {
+            for (var e : map.entrySet()) {
+                Object v = e.getValue();
+                if (v == null || isTable(v) || isTableArray(v)) continue;
+                writeInline(key(CodecSupport.mapKey(e.getKey())), v);
+            }
+            for (var e : map.entrySet()) {
+                if (e.getValue() != null) {
+                    writeTables(null, prefix + key(CodecSupport.mapKey(e.getKey())), e.getValue());
+                }
+            }
+        }
+
+        /* writes {@code value} as a table or array of tables at {@code path}, if it is one */
+        private void writeTables(String[] comment, String path, Object value) throws IOException {
+            if (isTable(value)) {
+                header(comment, "[", path, "]");
+                writeBody(value, path + ".");
+            } else if (isTableArray(value)) {
+                for (Object element : elements(value)) {
+                    header(comment, "[[", path, "]]");
+                    comment = null;
+                    writeBody(element, path + ".");
+                }
+            }
+        }
+
+        private void header(String[] comment, String open, String path, String close) throws IOException {
+            if (!empty) newline();
+            comment(comment);
+            out.write(open);
+            out.write(path);
+            out.write(close);
+            newline();
+        }
+
+        private void writeInline(String key, Object value) throws IOException {
+            out.write(key);
+            out.write(" = ");
+            dispatch.get(value.getClass()).adapter().write(values, value);
+            newline();
+        }
+
+        private void writePrimitive(Object instance, FieldSchema f) throws IOException {
+            FieldAccessor a = f.accessor();
+            switch (f.kind()) {
+                case INT -> values.value(a.getInt(instance));
+                case LONG -> values.value(a.getLong(instance));
+                case DOUBLE -> CodecSupport.writeDouble(values, a.getDouble(instance));
+                case FLOAT -> CodecSupport.writeFloat(values, a.getFloat(instance));
+                case BOOLEAN -> values.value(a.getBoolean(instance));
+                default -> throw new AssertionError(f.kind());
+            }
+        }
+
+        private void comment(String[] lines) throws IOException {
+            if (lines == null) return;
+            for (String line : lines) {
+                out.write("# ");
+                out.write(line);
+                newline();
+            }
+        }
+
+        private void newline() throws IOException {
+            out.write('\n');
+            empty = false;
+        }
+
+        private boolean isTable(Object value) {
+            Shape shape = dispatch.get(value.getClass()).shape();
+            return shape == Shape.POJO || shape == Shape.MAP;
+        }
+
+        /* a non-empty sequence of objects or maps */
+        private boolean isTableArray(Object value) {
+            if (dispatch.get(value.getClass()).shape() != Shape.SEQUENCE) return false;
+            boolean any = false;
+            for (Object element : elements(value)) {
+                if (element == null || !isTable(element)) return false;
+                any = true;
+            }
+            return any;
+        }
+
+        private Iterable<?> elements(Object sequence) {
+            return sequence instanceof Object[] array ? Arrays.asList(array) : (Iterable<?>) sequence;
+        }
+    }
+}
@@ -0,0 +1,802 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * {@link JsonReader} over a TOML document, presenting it as a single JSON
+ * object so that regular Gson type adapters bind TOML values directly, with
+ * no document tree in between.
+ *
+ * <p>The document is tokenized line by line as it is read. Table headers and
+ * dotted keys open nested objects, and {@code [[array]]} headers open arrays of
+ * objects; an object stays open while the following headers and keys extend
+ * its path and is closed when they leave it. A table that is reopened after
+ * another one has been defined (by a later header, a subtable header or a
+ * dotted key) is presented as a second member with the same name, and
+ * {@link #reopenedTables()} reports it so the caller can merge the members;
+ * {@link TomlConfigCodec} writes every table contiguously. Integers are presented as numbers (hexadecimal, octal and binary ones
+ * converted to decimal), {@code inf} and {@code nan} as {@code Infinity} and
+ * {@code NaN}, and dates and times as strings. Names and strings are
+ * canonicalized through the {@link StringDeduplicator} the reader was
+ * created with, if any.</p>
+ *
+ * <p>Gson internals that reach into the text reader's state (such as maps with
+ * non-string keys) fail with an {@link UnsupportedOperationException}.</p>
+ */
+final class TomlReader extends JsonReader {
+
+    /* kinds of the tables opened by headers and dotted keys */
+    private static final int TABLE = 0;
+    private static final int ARRAY_ELEMENT = 1;
+
+    /* kinds of the values open inside a key/value line */
+    private static final int INLINE_ARRAY = 0;
+    private static final int INLINE_TABLE = 1;
+    private static final int DOTTED = 2;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+    private int line = 1;
+    private final StringBuilder scratch = new StringBuilder();
+
+    /* tokens produced but not yet consumed */
+    private JsonToken[] tokens = new JsonToken[16];
+    private String[] texts = new String[16];
+    private int head;
+    private int tail;
+
+    /* open tables, outermost first; the first headerTables belong to the current header */
+    private String[] tableNames = new String[8];
+    private int[] tableKinds = new int[8];
+    /* path of each open table, including the element index of arrays of tables */
+    private String[] tablePaths = new String[8];
+    private int[] tableElements = new int[8];
+    private int tables;
+    private int headerTables;
+
+    /* paths of the tables and arrays of tables closed so far */
+    private final Set<String> closedTables = new HashSet<>();
+    private boolean reopened;
+
+    /* open inline arrays, inline tables and dotted keys inside them, innermost last */
+    private int[] inlineKinds = new int[8];
+    private boolean[] inlineAfterValue = new boolean[8];
+    private int inlines;
+
+    /* segments of the key or header being read */
+    private String[] keyPath = new String[8];
+
+    private boolean started;
+    private boolean finished;
+    private boolean lineEnd;
+    /* container depth of the tokens consumed so far, 1 inside the document */
+    private int depth;
+    /* syntax errors are sticky: the tokenizer cannot resume after one */
+    private IOException failure;
+
+    private final StringDeduplicator strings;
+
+    /**
+     * @param in document to read
+     * @param strings table to canonicalize names and strings through, or {@code null}
+     */
+    TomlReader(Reader in, StringDeduplicator strings) {
+        super(CodecSupport.UNREADABLE);
+        this.in = in;
+        this.strings = strings;
+    }
+
+    /**
+     * @return true once a table or array of tables has been opened again
+     *         after it was closed, so that it was presented as more than one member
+     */
+    boolean reopenedTables() { return reopened; }
+
+    /**
+     * Discard the remainder of a partially consumed value so that reading can
+     * continue with the next member of the object at {@code targetDepth}.
+     *
+     * @param targetDepth depth of the object whose member failed to bind
+     * @throws IOException if the document is malformed
+     */
+    void recoverTo(int targetDepth) throws IOException {
+        while (depth > targetDepth) {
+            if (peek() == JsonToken.END_DOCUMENT) throw new IllegalStateException("Unexpected end of document");
+            take();
+        }
+        JsonToken t = peek();
+        if (t != JsonToken.NAME && t != JsonToken.END_OBJECT && t != JsonToken.END_ARRAY) {
+            skipValue();
+        }
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        if (head == tail) {
+            if (finished) return JsonToken.END_DOCUMENT;
+            produce();
+        }
+        return tokens[head];
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        expect(JsonToken.BEGIN_ARRAY);
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        expect(JsonToken.END_ARRAY);
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        expect(JsonToken.BEGIN_OBJECT);
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        expect(JsonToken.END_OBJECT);
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        JsonToken t = peek();
+        return t != JsonToken.END_ARRAY && t != JsonToken.END_OBJECT && t != JsonToken.END_DOCUMENT;
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        return expect(JsonToken.NAME);
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        JsonToken t = peek();
+        if (t != JsonToken.STRING && t != JsonToken.NUMBER) throw unexpected("a string", t);
+        return take();
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        return expect(JsonToken.BOOLEAN).equals("true");
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        expect(JsonToken.NULL);
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        double d = Double.parseDouble(numberText());
+        take();
+        return d;
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        long l = integer(numberText(), "a long");
+        take();
+        return l;
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        String text = numberText();
+        long l = integer(text, "an int");
+        if ((int) l != l) throw new NumberFormatException("Expected an int but was " + text + " at " + getPath());
+        take();
+        return (int) l;
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        int count = 0;
+        do {
+            JsonToken t = peek();
+            switch (t) {
+                case BEGIN_ARRAY, BEGIN_OBJECT -> count++;
+                case END_ARRAY, END_OBJECT -> count--;
+                case END_DOCUMENT -> throw new IllegalStateException("Expected a value but was " + t + " at " + getPath());
+                default -> {}
+            }
+            if (count < 0) throw new IllegalStateException("Expected a value but was " + t + " at " + getPath());
+            take();
+        } while (count > 0);
+    }
+
+    @Override
+    public String getPath() {
+        return "$ (line " + line + ")";
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " at line " + line;
+    }
+
+
+    private String expect(JsonToken expected) throws IOException {
+        JsonToken t = peek();
+        if (t != expected) throw unexpected(expected.toString(), t);
+        return take();
+    }
+
+    /* text of the next token, which must be a number or a string */
+    private String numberText() throws IOException {
+        JsonToken t = peek();
+        if (t != JsonToken.NUMBER && t != JsonToken.STRING) throw unexpected("a number", t);
+        return texts[head];
+    }
+
+    /* an integer, or a float with an integral value, as Gson's reader accepts */
+    private long integer(String text, String expected) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException ex) {
+            double d = Double.parseDouble(text);
+            if ((long) d != d) throw new NumberFormatException("Expected " + expected + " but was " + text + " at " + getPath());
+            return (long) d;
+        }
+    }
+
+    private String take() {
+        JsonToken t = tokens[head];
+        String text = texts[head];
+        texts[head] = null;
+        if (++head == tail) head = tail = 0;
+
+        if (t == JsonToken.BEGIN_ARRAY || t == JsonToken.BEGIN_OBJECT) depth++;
+        else if (t == JsonToken.END_ARRAY || t == JsonToken.END_OBJECT) depth--;
+        return text;
+    }
+
+    private void queue(JsonToken token, String text) {
+        if (tail == tokens.length) {
+            tokens = Arrays.copyOf(tokens, tail * 2);
+            texts = Arrays.copyOf(texts, tail * 2);
+        }
+        tokens[tail] = token;
+        texts[tail] = text;
+        tail++;
+    }
+
+    private void queue(JsonToken token) {
+        queue(token, null);
+    }
+
+
+    /* tokenize until at least one token is queued */
+    private void produce() throws IOException {
+        if (failure != null) throw failure;
+        try {
+            while (head == tail && !finished) step();
+        } catch (MalformedJsonException ex) {
+            failure = ex;
+            throw ex;
+        } catch (RuntimeException ex) {
+            failure = syntaxError(ex.getMessage());
+            throw failure;
+        }
+    }
+
+    private void step() throws IOException {
+        if (!started) {
+            started = true;
+            if (peekChar() == '\uFEFF') pos++;
+            queue(JsonToken.BEGIN_OBJECT);
+            return;
+        }
+        if (inlines > 0) {
+            stepInline();
+            return;
+        }
+        if (lineEnd) {
+            expectLineEnd();
+            lineEnd = false;
+        }
+
+        skipBlank();
+        int c = peekChar();
+        if (c == -1) {
+            closeTables(0);
+            queue(JsonToken.END_OBJECT);
+            finished = true;
+        } else if (c == '[') {
+            header();
+        } else {
+            keyValue();
+        }
+    }
+
+    private void header() throws IOException {
+        pos++;
+        boolean array = peekChar() == '[';
+        if (array) pos++;
+        int n = readKeyPath();
+        skipSpaces();
+        expectChar(']');
+        if (array) expectChar(']');
+        lineEnd = true;
+
+        int common = 0;
+        while (common < Math.min(tables, n) && tableNames[common].equals(keyPath[common])) common++;
+
+        if (!array) {
+            closeTables(common);
+            openTables(n);
+        } else if (common == n && tableKinds[n - 1] == ARRAY_ELEMENT) {
+            // next element of the array of tables that is open
+            closeTables(n);
+            queue(JsonToken.END_OBJECT);
+            queue(JsonToken.BEGIN_OBJECT);
+            tablePaths[n - 1] = arrayPath(n - 1) + ++tableElements[n - 1] + '\0';
+        } else {
+            closeTables(Math.min(common, n - 1));
+            openTables(n - 1);
+            queue(JsonToken.NAME, keyPath[n - 1]);
+            queue(JsonToken.BEGIN_ARRAY);
+            queue(JsonToken.BEGIN_OBJECT);
+            pushTable(keyPath[n - 1], ARRAY_ELEMENT);
+        }
+        headerTables = tables;
+    }
+
+    private void keyValue() throws IOException {
+        int n = readKeyPath();
+
+        // tables opened by the dotted prefix of the previous key stay open while this key shares it
+        int common = 0;
+        while (common < n - 1 && headerTables + common < tables
+                && tableNames[headerTables + common].equals(keyPath[common])) {
+            common++;
+        }
+        closeTables(headerTables + common);
+        for (int i = common; i < n - 1; i++) {
+            queue(JsonToken.NAME, keyPath[i]);
+            queue(JsonToken.BEGIN_OBJECT);
+            pushTable(keyPath[i], TABLE);
+        }
+        queue(JsonToken.NAME, keyPath[n - 1]);
+
+        skipSpaces();
+        expectChar('=');
+        skipSpaces();
+        value();
+    }
+
+    /* open the tables for keyPath[tables..n) */
+    private void openTables(int n) {
+        for (int i = tables; i < n; i++) {
+            queue(JsonToken.NAME, keyPath[i]);
+            queue(JsonToken.BEGIN_OBJECT);
+            pushTable(keyPath[i], TABLE);
+        }
+    }
+
+    private void closeTables(int n) {
+        while (tables > n) {
+            tables--;
+            queue(JsonToken.END_OBJECT);
+            if (tableKinds[tables] == ARRAY_ELEMENT) {
+                queue(JsonToken.END_ARRAY);
+                closedTables.add(arrayPath(tables));
+            } else {
+                closedTables.add(tablePaths[tables]);
+            }
+            tableNames[tables] = null;
+            tablePaths[tables] = null;
+        }
+    }
+
+    private void pushTable(String name, int kind) {
+        if (tables == tableNames.length) {
+            tableNames = Arrays.copyOf(tableNames, tables * 2);
+            tableKinds = Arrays.copyOf(tableKinds, tables * 2);
+            tablePaths = Arrays.copyOf(tablePaths, tables * 2);
+            tableElements = Arrays.copyOf(tableElements, tables * 2);
+        }
+        tableNames[tables] = name;
+        tableKinds[tables] = kind;
+        tableElements[tables] = 0;
+        if (kind == ARRAY_ELEMENT) {
+            String array = arrayPath(tables);
+            if (closedTables.contains(array)) reopened = true;
+            tablePaths[tables] = array + "0\0";
+        } else {
+            String path = (tables == 0 ? "" : tablePaths[tables - 1]) + name + '\0';
+            if (closedTables.contains(path)) reopened = true;
+            tablePaths[tables] = path;
+        }
+        tables++;
+    }
+
+    /* path of the array of tables named at slot {@code i}, whose parents are open */
+    private String arrayPath(int i) {
+        return (i == 0 ? "" : tablePaths[i - 1]) + tableNames[i] + "\0[]\0";
+    }
+
+
+    private void stepInline() throws IOException {
+        int top = inlines - 1;
+        skipBlank();
+        int c = peekChar();
+        if (c == -1) throw syntaxError("Unterminated inline value");
+
+        boolean array = inlineKinds[top] == INLINE_ARRAY;
+        if (c == (array ? ']' : '}')) {
+            pos++;
+            inlines--;
+            queue(array ? JsonToken.END_ARRAY : JsonToken.END_OBJECT);
+            afterValue();
+            return;
+        }
+        if (inlineAfterValue[top]) {
+            expectChar(',');
+            inlineAfterValue[top] = false;
+            return;
+        }
+        if (array) {
+            value();
+            return;
+        }
+
+        int n = readKeyPath();
+        for (int i = 0; i < n - 1; i++) {
+            queue(JsonToken.NAME, keyPath[i]);
+            queue(JsonToken.BEGIN_OBJECT);
+            pushInline(DOTTED);
+        }
+        queue(JsonToken.NAME, keyPath[n - 1]);
+        skipSpaces();
+        expectChar('=');
+        skipSpaces();
+        value();
+    }
+
+    private void value() throws IOException {
+        int c = peekChar();
+        switch (c) {
+            case '[' -> {
+                pos++;
+                pushInline(INLINE_ARRAY);
+                queue(JsonToken.BEGIN_ARRAY);
+            }
+            case '{' -> {
+                pos++;
+                pushInline(INLINE_TABLE);
+                queue(JsonToken.BEGIN_OBJECT);
+            }
+            case '"', '\'' -> {
+                queue(JsonToken.STRING, canonical(readString()));
+                afterValue();
+            }
+            case -1 -> throw syntaxError("Expected a value");
+            default -> {
+                bareValue();
+                afterValue();
+            }
+        }
+    }
+
+    /* close the dotted keys the value completed, then expect a separator or the end of the line */
+    private void afterValue() {
+        while (inlines > 0 && inlineKinds[inlines - 1] == DOTTED) {
+            inlines--;
+            queue(JsonToken.END_OBJECT);
+        }
+        if (inlines > 0) {
+            inlineAfterValue[inlines - 1] = true;
+        } else {
+            lineEnd = true;
+        }
+    }
+
+    private void pushInline(int kind) {
+        if (inlines == inlineKinds.length) {
+            inlineKinds = Arrays.copyOf(inlineKinds, inlines * 2);
+            inlineAfterValue = Arrays.copyOf(inlineAfterValue, inlines * 2);
+        }
+        inlineKinds[inlines] = kind;
+        inlineAfterValue[inlines] = false;
+        inlines++;
+    }
+
+    /* booleans, numbers, special floats, dates and times */
+    private void bareValue() throws IOException {
+        scratch.setLength(0);
+        for (int c; (c = peekChar()) != -1; pos++) {
+            if (c == ' ' && isLocalDate(scratch) && isDigit(peekChar(1))) {
+                scratch.append('T'); // "1979-05-27 07:32:00" is a date-time
+                continue;
+            }
+            if (!isBareValueChar(c)) break;
+            scratch.append((char) c);
+        }
+        if (scratch.length() == 0) throw syntaxError("Expected a value");
+
+        String text = scratch.toString();
+        switch (text) {
+            case "true", "false" -> queue(JsonToken.BOOLEAN, text);
+            case "inf", "+inf" -> queue(JsonToken.NUMBER, "Infinity");
+            case "-inf" -> queue(JsonToken.NUMBER, "-Infinity");
+            case "nan", "+nan", "-nan" -> queue(JsonToken.NUMBER, "NaN");
+            default -> {
+                if (isDateOrTime(text)) {
+                    queue(JsonToken.STRING, text);
+                } else {
+                    queue(JsonToken.NUMBER, number(text));
+                }
+            }
+        }
+    }
+
+    /* decimal text of an integer or float, without underscores */
+    private String number(String text) throws IOException {
+        String digits = text.indexOf('_') < 0 ? text : text.replace("_", "");
+        if (digits.length() > 2 && digits.charAt(0) == '0') {
+            int radix = switch (digits.charAt(1)) {
+                case 'x' -> 16;
+                case 'o' -> 8;
+                case 'b' -> 2;
+                default -> 0;
+            };
+            if (radix != 0) return Long.toString(Long.parseLong(digits.substring(2), radix));
+        }
+
+        boolean digit = false;
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            if (isDigit(c)) {
+                digit = true;
+            } else if (c != '+' && c != '-' && c != '.' && c != 'e' && c != 'E') {
+                throw syntaxError("Unexpected value " + text);
+            }
+        }
+        if (!digit) throw syntaxError("Unexpected value " + text);
+        return digits;
+    }
+
+    private String canonical(String s) {
+        return strings == null ? s : strings.canonicalize(s);
+    }
+
+    private String readString() throws IOException {
+        char quote = buffer[pos++];
+        if (peekChar() == quote) {
+            if (peekChar(1) != quote) {
+                pos++;
+                return "";
+            }
+            pos += 2;
+            return readMultiLineString(quote);
+        }
+
+        scratch.setLength(0);
+        for (;;) {
+            int c = peekChar();
+            if (c == -1 || c == '\n') throw syntaxError("Unterminated string");
+            pos++;
+            if (c == quote) return scratch.toString();
+            if (c == '\\' && quote == '"') escape();
+            else scratch.append((char) c);
+        }
+    }
+
+    private String readMultiLineString(char quote) throws IOException {
+        // a newline right after the opening delimiter is trimmed
+        if (peekChar() == '\r' && peekChar(1) == '\n') pos++;
+        if (peekChar() == '\n') {
+            pos++;
+            line++;
+        }
+
+        scratch.setLength(0);
+        for (;;) {
+            int c = peekChar();
+            if (c == -1) throw syntaxError("Unterminated string");
+            if (c == quote && peekChar(1) == quote && peekChar(2) == quote) {
+                // up to two quotes may precede the closing delimiter
+                int run = 3;
+                while (run < 5 && peekChar(run) == quote) run++;
+                for (int i = 3; i < run; i++) scratch.append(quote);
+                pos += run;
+                return scratch.toString();
+            }
+            pos++;
+            if (c == '\n') line++;
+            if (c == '\\' && quote == '"') {
+                if (isSpace(peekChar()) || peekChar() == '\r' || peekChar() == '\n') {
+                    // line-ending backslash: trim the following whitespace and newlines
+                    for (int w; (w = peekChar()) == ' ' || w == '\t' || w == '\r' || w == '\n'; pos++) {
+                        if (w == '\n') line++;
+                    }
+                } else {
+                    escape();
+                }
+            } else {
+                scratch.append((char) c);
+            }
+        }
+    }
+
+    private void escape() throws IOException {
+        int c = peekChar();
+        if (c == -1) throw syntaxError("Unterminated escape sequence");
+        pos++;
+        switch (c) {
+            case 'b' -> scratch.append('\b');
+            case 't' -> scratch.append('\t');
+            case 'n' -> scratch.append('\n');
+            case 'f' -> scratch.append('\f');
+            case 'r' -> scratch.append('\r');
+            case 'e' -> scratch.append('\u001b');
+            case '"' -> scratch.append('"');
+            case '\\' -> scratch.append('\\');
+            case 'u' -> scratch.appendCodePoint(hex(4));
+            case 'U' -> scratch.appendCodePoint(hex(8));
+            default -> throw syntaxError("Invalid escape sequence \\" + (char) c);
+        }
+    }
+
+    private int hex(int digits) throws IOException {
+        if (peekChar(digits - 1) == -1) throw syntaxError("Unterminated escape sequence");
+        int v = 0;
+        for (int i = 0; i < digits; i++) {
+            int d = Character.digit(buffer[pos++], 16);
+            if (d < 0) throw syntaxError("Invalid unicode escape");
+            v = v << 4 | d;
+        }
+        if (!Character.isValidCodePoint(v)) throw syntaxError("Invalid unicode escape");
+        return v;
+    }
+
+    /* read a key of one or more dotted segments into keyPath; returns the number of segments */
+    private int readKeyPath() throws IOException {
+        int n = 0;
+        for (;;) {
+            skipSpaces();
+            int c = peekChar();
+            String segment;
+            if (c == '"' || c == '\'') {
+                segment = readString();
+            } else {
+                scratch.setLength(0);
+                for (; (c = peekChar()) != -1 && isBareKeyChar(c); pos++) scratch.append((char) c);
+                if (scratch.length() == 0) throw syntaxError("Expected a key");
+                segment = scratch.toString();
+            }
+
+            if (n == keyPath.length) keyPath = Arrays.copyOf(keyPath, n * 2);
+            keyPath[n++] = strings == null ? segment : strings.canonicalizeName(segment);
+
+            skipSpaces();
+            if (peekChar() != '.') return n;
+            pos++;
+        }
+    }
+
+
+    private void expectLineEnd() throws IOException {
+        skipSpaces();
+        int c = peekChar();
+        if (c == '#') {
+            skipComment();
+            c = peekChar();
+        }
+        if (c == '\r' && peekChar(1) == '\n') {
+            pos++;
+            c = '\n';
+        }
+        if (c == '\n') {
+            pos++;
+            line++;
+        } else if (c != -1) {
+            throw syntaxError("Expected a new line");
+        }
+    }
+
+    /* whitespace, newlines and comments */
+    private void skipBlank() throws IOException {
+        for (int c; (c = peekChar()) != -1; ) {
+            if (c == '#') {
+                skipComment();
+            } else if (c == '\n') {
+                pos++;
+                line++;
+            } else if (isSpace(c) || c == '\r') {
+                pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipSpaces() throws IOException {
+        while (isSpace(peekChar())) pos++;
+    }
+
+    /* up to, not including, the end of the line */
+    private void skipComment() throws IOException {
+        for (int c; (c = peekChar()) != -1 && c != '\n'; ) pos++;
+    }
+
+    private void expectChar(char expected) throws IOException {
+        if (peekChar() != expected) throw syntaxError("Expected '" + expected + "'");
+        pos++;
+    }
+
+    private int peekChar() throws IOException {
+        return (pos < limit || fill(1)) ? buffer[pos] : -1;
+    }
+
+    private int peekChar(int ahead) throws IOException {
+        return (pos + ahead < limit || fill(ahead + 1)) ? buffer[pos + ahead] : -1;
+    }
+
+    /* make at least {@code minimum} characters available at {@link #pos} */
+    private boolean fill(int minimum) throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        for (int n; limit < minimum && (n = in.read(buffer, limit, buffer.length - limit)) != -1; ) {
+            limit += n;
+        }
+        return limit >= minimum;
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isBareKeyChar(int c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || isDigit(c) || c == '_' || c == '-';
+    }
+
+    private static boolean isBareValueChar(int c) {
+        return isBareKeyChar(c) || c == '+' || c == '.' || c == ':';
+    }
+
+    /* yyyy-mm-dd */
+    private static boolean isLocalDate(CharSequence s) {
+        return s.length() == 10 && s.charAt(4) == '-' && s.charAt(7) == '-';
+    }
+
+    /* starts with yyyy- or hh: */
+    private static boolean isDateOrTime(String s) {
+        if (s.length() > 4 && s.charAt(4) == '-') {
+            return isDigit(s.charAt(0)) && isDigit(s.charAt(1)) && isDigit(s.charAt(2)) && isDigit(s.charAt(3));
+        }
+        return s.length() > 2 && s.charAt(2) == ':' && isDigit(s.charAt(0)) && isDigit(s.charAt(1));
+    }
+
+    private MalformedJsonException syntaxError(String message) {
+        return new MalformedJsonException(message + " at " + getPath());
+    }
+
+    private IllegalStateException unexpected(String expected, JsonToken actual) {
+        return new IllegalStateException("Expected " + expected + " but was " + actual + " at " + getPath());
+    }
+}
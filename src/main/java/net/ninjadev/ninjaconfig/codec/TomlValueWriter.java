@@ -0,0 +1,233 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * {@link JsonWriter} that writes values in TOML inline syntax, so regular
+ * Gson type adapters can write the right-hand side of a TOML key/value pair:
+ * arrays as {@code [1, 2]}, objects as inline tables {@code { a = 1 }} and
+ * strings as basic strings.
+ *
+ * <p>TOML has no null: {@code null} object members are omitted, and a
+ * {@code null} anywhere else fails with an {@link IllegalStateException}.
+ * Several top-level values may be written one after another; nothing is
+ * written between them.</p>
+ */
+final class TomlValueWriter extends JsonWriter {
+
+    private final Writer out;
+
+    /* per open container: whether it is an inline table, and whether it has no members yet */
+    private boolean[] tables = new boolean[16];
+    private boolean[] empty = new boolean[16];
+    private int depth;
+    private String deferredName;
+
+    TomlValueWriter(Writer out) {
+        super(CodecSupport.UNWRITABLE);
+        this.out = out;
+        setSerializeNulls(false);
+    }
+
+    /**
+     * Write {@code key} as a bare key when it only has letters, digits,
+     * {@code _} and {@code -}, and as a quoted key otherwise.
+     *
+     * @param out destination
+     * @param key key to write
+     * @throws IOException if writing fails
+     */
+    static void writeKey(Writer out, String key) throws IOException {
+        boolean bare = !key.isEmpty();
+        for (int i = 0; i < key.length() && bare; i++) {
+            char c = key.charAt(i);
+            bare = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_' || c == '-';
+        }
+        if (bare) out.write(key);
+        else writeString(out, key);
+    }
+
+    /**
+     * Write {@code s} as a TOML basic string.
+     *
+     * @param out destination
+     * @param s string to write
+     * @throws IOException if writing fails
+     */
+    static void writeString(Writer out, String s) throws IOException {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String escaped = switch (c) {
+                case '"' -> "\\\"";
+                case '\\' -> "\\\\";
+                case '\b' -> "\\b";
+                case '\t' -> "\\t";
+                case '\n' -> "\\n";
+                case '\f' -> "\\f";
+                case '\r' -> "\\r";
+                default -> (c < 0x20 || c == 0x7f) ? String.format("\\u%04x", (int) c) : null;
+            };
+            if (escaped == null) continue;
+            out.write(s, start, i - start);
+            out.write(escaped);
+            start = i + 1;
+        }
+        out.write(s, start, s.length() - start);
+        out.write('"');
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        return open(false, '[');
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        return open(true, '{');
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        if (deferredName != null) throw new IllegalStateException("Dangling name: " + deferredName);
+        return close('}');
+    }
+
+    @Override
+    public JsonWriter name(String name) {
+        if (name == null) throw new NullPointerException("name == null");
+        if (deferredName != null) throw new IllegalStateException("Already wrote a name");
+        if (depth == 0 || !tables[depth - 1]) throw new IllegalStateException("Name outside of an inline table");
+        deferredName = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) return nullValue();
+        beforeValue();
+        writeString(out, value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) throws IOException {
+        if (value == null) return nullValue();
+        beforeValue();
+        out.write(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() {
+        if (deferredName != null && !getSerializeNulls()) {
+            deferredName = null;
+            return this;
+        }
+        throw new IllegalStateException("TOML cannot represent null");
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+        return value == null ? nullValue() : value(value.booleanValue());
+    }
+
+    /* overrides JsonWriter.value(float) where the Gson version has it */
+    public JsonWriter value(float value) throws IOException {
+        return value((double) value);
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        beforeValue();
+        if (Double.isNaN(value)) out.write("nan");
+        else if (Double.isInfinite(value)) out.write(value > 0 ? "inf" : "-inf");
+        else out.write(Double.toString(value));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (value == null) return nullValue();
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return value(value.longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return value(value.doubleValue());
+        }
+        if (value instanceof BigInteger b && b.bitLength() < 64) {
+            return value(b.longValue());
+        }
+        return jsonValue(value.toString());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() {}
+
+    private JsonWriter open(boolean table, char bracket) throws IOException {
+        beforeValue();
+        if (depth == tables.length) {
+            tables = Arrays.copyOf(tables, depth * 2);
+            empty = Arrays.copyOf(empty, depth * 2);
+        }
+        tables[depth] = table;
+        empty[depth] = true;
+        depth++;
+        out.write(bracket);
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0) throw new IllegalStateException("Nesting problem");
+        depth--;
+        if (tables[depth] && !empty[depth]) out.write(' ');
+        out.write(bracket);
+        return this;
+    }
+
+    /* writes the separator and the pending key, if any */
+    private void beforeValue() throws IOException {
+        if (depth == 0) return;
+        int top = depth - 1;
+        if (tables[top]) {
+            if (deferredName == null) throw new IllegalStateException("Value in an inline table without a name");
+            out.write(empty[top] ? " " : ", ");
+            writeKey(out, deferredName);
+            out.write(" = ");
+            deferredName = null;
+        } else if (!empty[top]) {
+            out.write(", ");
+        }
+        empty[top] = false;
+    }
+}
@@ -0,0 +1,138 @@
+package net.ninjadev.ninjaconfig.collection;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Growable list of {@code long} values without boxing.
+ *
+ * <p>Use it instead of {@code List<Long>} for large config fields such as
+ * timestamps or seeds; the codecs read and write it as a plain JSON array of numbers.</p>
+ */
+public final class LongList {
+    private static final long[] EMPTY = new long[0];
+
+    private long[] values;
+    private int size;
+
+    /** Create an empty list. */
+    public LongList() {
+        this.values = EMPTY;
+    }
+
+    /**
+     * Create an empty list with room for {@code capacity} values.
+     *
+     * @param capacity initial capacity
+     */
+    public LongList(int capacity) {
+        this.values = capacity == 0 ? EMPTY : new long[capacity];
+    }
+
+    /**
+     * Create a list holding a copy of {@code values}.
+     *
+     * @param values initial contents
+     * @return the new list
+     */
+    public static LongList of(long... values) {
+        LongList list = new LongList(values.length);
+        System.arraycopy(values, 0, list.values, 0, values.length);
+        list.size = values.length;
+        return list;
+    }
+
+    /** @return number of values in the list */
+    public int size() { return size; }
+
+    /** @return true when the list holds no values */
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * @param index position of the value
+     * @return the value at {@code index}
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public long get(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Replace the value at {@code index}.
+     *
+     * @param index position of the value
+     * @param value new value
+     * @return the previous value
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public long set(int index, long value) {
+        checkIndex(index);
+        long old = values[index];
+        values[index] = value;
+        return old;
+    }
+
+    /**
+     * Append a value.
+     *
+     * @param value value to add
+     */
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(8, size + (size >> 1)));
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * @param value value to look for
+     * @return true when the list contains {@code value}
+     */
+    public boolean contains(long value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    /** Remove all values, keeping the allocated capacity. */
+    public void clear() { size = 0; }
+
+    /**
+     * @param action called with each value in order
+     */
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < size; i++) action.accept(values[i]);
+    }
+
+    /** @return a copy of the values */
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LongList other)) return false;
+        return Arrays.equals(values, 0, size, other.values, 0, other.size);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < size; i++) h = 31 * h + Long.hashCode(values[i]);
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package net.ninjadev.ninjaconfig.collection;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Map from {@code String} keys to {@code int} values without boxing.
+ *
+ * <p>Entries are stored in insertion order in parallel arrays and located
+ * through an open-addressing (linear probing) table of entry indices, so
+ * iteration and the written JSON object follow insertion order. Use it
+ * instead of {@code Map<String, Integer>} for large lookup tables; the codecs
+ * read and write it as a plain JSON object.</p>
+ */
+public final class StringIntMap {
+    private static final String[] NO_KEYS = new String[0];
+    private static final int[] NO_VALUES = new int[0];
+
+    private String[] keys = NO_KEYS;
+    private int[] values = NO_VALUES;
+    private int size;
+
+    /* entry index + 1 per slot, 0 for an empty slot; length is a power of two */
+    private int[] slots = new int[8];
+
+    /** Create an empty map. */
+    public StringIntMap() {}
+
+    /** @return number of entries */
+    public int size() { return size; }
+
+    /** @return true when the map has no entries */
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * @param key key to look up
+     * @return true when the map contains {@code key}
+     */
+    public boolean containsKey(String key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @param key key to look up
+     * @param defaultValue value returned when the key is absent
+     * @return the value for {@code key}, or {@code defaultValue}
+     */
+    public int getOrDefault(String key, int defaultValue) {
+        int i = indexOf(key);
+        return i >= 0 ? values[i] : defaultValue;
+    }
+
+    /**
+     * Associate {@code value} with {@code key}, keeping the position of an
+     * existing entry.
+     *
+     * @param key non-null key
+     * @param value value to store
+     * @return true when the key was not present before
+     */
+    public boolean put(String key, int value) {
+        Objects.requireNonNull(key, "key");
+        int mask = slots.length - 1;
+        int slot = mix(key.hashCode()) & mask;
+        for (int s; (s = slots[slot]) != 0; slot = (slot + 1) & mask) {
+            if (keys[s - 1].equals(key)) {
+                values[s - 1] = value;
+                return false;
+            }
+        }
+
+        if (size == keys.length) {
+            int capacity = Math.max(8, size + (size >> 1));
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        keys[size] = key;
+        values[size] = value;
+        slots[slot] = ++size;
+
+        if (size * 2 > slots.length) rehash(slots.length * 2);
+        return true;
+    }
+
+    /**
+     * Remove the entry for {@code key}. Later entries keep their order.
+     *
+     * @param key key to remove
+     * @return true when an entry was removed
+     */
+    public boolean remove(String key) {
+        int i = indexOf(key);
+        if (i < 0) return false;
+
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(values, i + 1, values, i, size - i - 1);
+        keys[--size] = null;
+        rehash(slots.length);
+        return true;
+    }
+
+    /** Remove all entries. */
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    /**
+     * @param index entry position in insertion order
+     * @return the key of the entry at {@code index}
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public String keyAt(int index) {
+        Objects.checkIndex(index, size);
+        return keys[index];
+    }
+
+    /**
+     * @param index entry position in insertion order
+     * @return the value of the entry at {@code index}
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int valueAt(int index) {
+        Objects.checkIndex(index, size);
+        return values[index];
+    }
+
+    /**
+     * @param action called with each key and value in insertion order
+     */
+    public void forEach(ObjIntConsumer<String> action) {
+        for (int i = 0; i < size; i++) action.accept(keys[i], values[i]);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StringIntMap other) || other.size != size) return false;
+        for (int i = 0; i < size; i++) {
+            int j = other.indexOf(keys[i]);
+            if (j < 0 || other.values[j] != values[i]) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = 0; i < size; i++) h += keys[i].hashCode() ^ values[i];
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(keys[i]).append('=').append(values[i]);
+        }
+        return sb.append('}').toString();
+    }
+
+    private int indexOf(String key) {
+        if (key == null || size == 0) return -1;
+        int mask = slots.length - 1;
+        for (int slot = mix(key.hashCode()) & mask, s; (s = slots[slot]) != 0; slot = (slot + 1) & mask) {
+            if (keys[s - 1].equals(key)) return s - 1;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = mix(keys[i].hashCode()) & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = i + 1;
+        }
+    }
+
+    /* spread the high bits so keys sharing a prefix do not cluster */
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,85 @@
+package net.ninjadev.ninjaconfig.core;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Output stream that collects bytes in a chain of fixed-size chunks, so
+ * growing never copies what was already written. The first chunks, up to
+ * {@code directLimit} bytes, are direct buffers that are kept across
+ * {@link #reset()}; chunks past that limit are heap buffers that are dropped
+ * again, so an unusually large config does not allocate direct memory on
+ * every save. Instances are pooled by {@link ConfigManager} and reused across
+ * saves, and a serialized config is handed to a
+ * {@link java.nio.channels.FileChannel} in one gathering write.
+ */
+final class ByteBufferOutputStream extends OutputStream {
+
+    private final int chunkSize;
+    private final int directChunks;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    /* index of the chunk being written, -1 before the first write */
+    private int current = -1;
+    private long size;
+
+    /**
+     * @param chunkSize capacity of each chunk
+     * @param directLimit number of bytes held in direct chunks; the rest go to heap chunks
+     */
+    ByteBufferOutputStream(int chunkSize, int directLimit) {
+        this.chunkSize = chunkSize;
+        this.directChunks = Math.max(1, directLimit / chunkSize);
+    }
+
+    @Override
+    public void write(int b) {
+        chunk().put((byte) b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            ByteBuffer chunk = chunk();
+            int n = Math.min(len, chunk.remaining());
+            chunk.put(b, off, n);
+            off += n;
+            len -= n;
+            size += n;
+        }
+    }
+
+    /** @return number of bytes written since the last {@link #reset()} */
+    long size() { return size; }
+
+    /** @return read-only views of the chunks written so far, each positioned at 0 */
+    ByteBuffer[] contents() {
+        ByteBuffer[] contents = new ByteBuffer[current + 1];
+        for (int i = 0; i <= current; i++) {
+            contents[i] = chunks.get(i).asReadOnlyBuffer().flip();
+        }
+        return contents;
+    }
+
+    /** Discard the contents, keeping the direct chunks and dropping the heap ones. */
+    void reset() {
+        while (chunks.size() > directChunks) chunks.remove(chunks.size() - 1);
+        for (ByteBuffer chunk : chunks) chunk.clear();
+        current = -1;
+        size = 0;
+    }
+
+    /* the chunk to write to, with at least one byte remaining */
+    private ByteBuffer chunk() {
+        if (current >= 0 && chunks.get(current).hasRemaining()) return chunks.get(current);
+
+        current++;
+        if (current == chunks.size()) {
+            chunks.add(current < directChunks ? ByteBuffer.allocateDirect(chunkSize) : ByteBuffer.allocate(chunkSize));
+        }
+        return chunks.get(current);
+    }
+}
@@ -3,26 +3,48 @@ package net.ninjadev.ninjaconfig.core;
 import net.fabricmc.loader.api.FabricLoader;
 import net.ninjadev.ninjaconfig.api.ConfigBase;
 import net.ninjadev.ninjaconfig.codec.ConfigCodec;
+import net.ninjadev.ninjaconfig.codec.FieldFingerprints;
 import net.ninjadev.ninjaconfig.codec.GsonNestedCommentCodec;
 import net.ninjadev.ninjaconfig.codec.MergeResult;
+import net.ninjadev.ninjaconfig.codec.StringDeduplicator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Manager that registers, loads and saves configuration objects for a mod.
  *
  * <p>Each registered config is associated with a filename and is persisted
- * using the configured {@link ConfigCodec}.</p>
+ * using the configured {@link ConfigCodec}, by default a
+ * {@link GsonNestedCommentCodec}. Configs annotated with
+ * {@link net.ninjadev.ninjaconfig.annotation.GenerateCodec} are read and
+ * written by their generated codec when the codec is built with
+ * {@link GsonNestedCommentCodec.Builder#generatedCodecs(boolean)}.</p>
+ *
+ * <p>Saving serializes into a pooled chunked buffer and hashes the bytes; when
+ * they match the file on disk, the temp-file write and rename are skipped,
+ * otherwise the temp file is written from the buffer with a single gathering
+ * channel write.</p>
  */
 public final class ConfigManager {
 
@@ -51,6 +73,7 @@ public final class ConfigManager {
         private ConfigCodec codec;
         private Logger logger;
         private AutoLoadPolicy policy = AutoLoadPolicy.EAGER;
+        private boolean deduplicateStrings;
 
         /**
          * Create a builder for the supplied mod id. By default the manager will use
@@ -71,6 +94,12 @@ public final class ConfigManager {
         public Builder logger(Logger logger) { this.logger = logger; return this; }
         /** Set whether configs are loaded eagerly or manually. */
         public Builder policy(AutoLoadPolicy policy) { this.policy = policy; return this; }
+        /**
+         * Canonicalize strings decoded by every load of this manager through
+         * one shared {@link StringDeduplicator}, so repeated values across all
+         * of its configs share a single instance. See {@link #stringStats()}.
+         */
+        public Builder deduplicateStrings(boolean deduplicateStrings) { this.deduplicateStrings = deduplicateStrings; return this; }
 
         /**
          * Build the {@link ConfigManager} instance.
@@ -80,7 +109,8 @@ public final class ConfigManager {
         public ConfigManager build() {
             ConfigCodec codec = (this.codec != null) ? this.codec : new GsonNestedCommentCodec();
             Logger log = (logger != null) ? logger : LoggerFactory.getLogger(modId);
-            return new ConfigManager(rootDir, codec, log, policy);
+            StringDeduplicator strings = deduplicateStrings ? new StringDeduplicator() : null;
+            return new ConfigManager(rootDir, codec, log, policy, strings);
         }
     }
 
@@ -90,9 +120,27 @@ public final class ConfigManager {
 
     private final ConfigCodec codec;
     private final Logger log;
+    private final StringDeduplicator strings;
+
+    /* field fingerprints of the last load of each file, keyed by file name */
+    private final Map<String, FieldFingerprints> fingerprints = new ConcurrentHashMap<>();
+
+    /* content hash of each file as last written by this manager, keyed by file name */
+    private final Map<String, Written> written = new ConcurrentHashMap<>();
 
-    private ConfigManager(Path rootDir, ConfigCodec codec, Logger log, AutoLoadPolicy policy) {
-        this.rootDir = rootDir; this.codec = codec; this.log = log; this.policy = policy;
+    /**
+     * Hash of a file's content together with the attributes it had, so an
+     * edit made outside the manager invalidates the hash.
+     */
+    private record Written(byte[] hash, FileTime modified, long size) {}
+
+    /* serialization buffers reused across saves; each keeps up to DIRECT_BUFFER bytes of direct chunks */
+    private static final int BUFFER_CHUNK = 64 * 1024;
+    private static final int DIRECT_BUFFER = 4 * 1024 * 1024;
+    private final Queue<ByteBufferOutputStream> buffers = new ConcurrentLinkedQueue<>();
+
+    private ConfigManager(Path rootDir, ConfigCodec codec, Logger log, AutoLoadPolicy policy, StringDeduplicator strings) {
+        this.rootDir = rootDir; this.codec = codec; this.log = log; this.policy = policy; this.strings = strings;
     }
 
     /**
@@ -104,9 +152,11 @@ public final class ConfigManager {
      * @param cfg config instance
      * @param <T> concrete config type
      * @return the passed config instance
-     * @throws IllegalStateException when a config with the same filename is already registered
+     * @throws IllegalStateException when a config with the same filename is already registered,
+     *         or the codec cannot handle the config's class
      */
     public <T extends ConfigBase<T>> T register(String fileName, T cfg) {
+        codec.checkSupported(cfg.getClass());
         Entry<T> e = new Entry<>(fileName, cfg, codec.defaultExtension());
         if (entries.putIfAbsent(fileName, e) != null)
             throw new IllegalStateException("Duplicate config: " + fileName);
@@ -122,6 +172,14 @@ public final class ConfigManager {
     public void saveDirty(){ this.getSnapshot().stream().filter(en -> en.config.isDirty()).forEach(this::save); }
 
 
+    /**
+     * @return counters of the string deduplication table, or {@code null}
+     *         when {@link Builder#deduplicateStrings(boolean)} is off
+     */
+    public StringDeduplicator.Stats stringStats() {
+        return strings != null ? strings.stats() : null;
+    }
+
     private List<Entry<?>> getSnapshot() {
         return List.copyOf(entries.values());
     }
@@ -129,10 +187,12 @@ public final class ConfigManager {
     private <T extends ConfigBase<T>> void load(Entry<T> e) {
         Path path = filePath(e.fileName, e.extension);
         T config = e.config;
+        FieldFingerprints previous = fingerprints.computeIfAbsent(e.fileName, k -> new FieldFingerprints());
         try {
-            config.resetDefaults();
+            // unsaved in-memory changes mean current values no longer match the last load
+            if (config.isDirty()) previous.clear();
 
-            MergeResult mergeResult = codec.mergeInto(path, config);
+            MergeResult mergeResult = codec.remergeInto(path, config, config::resetDefaults, previous, strings);
 
             T validated = config.validate(config);
             if (validated != config) config.copyFrom(validated);
@@ -140,11 +200,14 @@ public final class ConfigManager {
             config.afterLoad();
             config.markClean();
 
-            if (!mergeResult.fileExists() || mergeResult.missingKeys() || mergeResult.parseError()) {
+            MergeResult.Format format = mergeResult.format();
+            if (!mergeResult.fileExists() || mergeResult.missingKeys() || mergeResult.parseError()
+                    || (format != MergeResult.Format.UNKNOWN && format != codec.writtenFormat())) {
                 save(e);
             }
         } catch (Exception ex) {
             log.warn("Failed to read {}. Regenerating defaults.", path, ex);
+            previous.clear();
             config.resetDefaults();
             save(e);
         }
@@ -157,20 +220,96 @@ public final class ConfigManager {
         try {
             Files.createDirectories(dir);
             config.beforeSave();
-            Path tmp = Files.createTempFile(dir, e.fileName + "_", e.extension + ".tmp");
-            codec.write(tmp, config);
+
+            ByteBufferOutputStream buffer = acquireBuffer();
             try {
-                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-            } catch (AtomicMoveNotSupportedException ex) {
-                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+                codec.write(buffer, config);
+
+                MessageDigest digest = sha256();
+                for (ByteBuffer chunk : buffer.contents()) digest.update(chunk);
+                byte[] hash = digest.digest();
+
+                if (isUnchanged(e.fileName, path, hash, buffer.size())) {
+                    codec.writeCompanions(path, config);
+                    config.markClean();
+                    log.debug("Unchanged {}", path);
+                    return;
+                }
+
+                Path tmp = Files.createTempFile(dir, e.fileName + "_", e.extension + ".tmp");
+                try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    ByteBuffer[] bytes = buffer.contents();
+                    for (long remaining = buffer.size(); remaining > 0; ) remaining -= ch.write(bytes);
+                }
+                try {
+                    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                written.put(e.fileName, new Written(hash, attrs.lastModifiedTime(), attrs.size()));
+            } finally {
+                releaseBuffer(buffer);
             }
+            codec.writeCompanions(path, config);
+
             config.markClean();
             log.info("Saved {}", path);
-        } catch (IOException ex) {
+        } catch (IOException | RuntimeException ex) {
             log.error("Failed to save {}", path, ex);
         }
     }
 
+    /**
+     * Compare a freshly serialized hash against the file on disk. The recorded
+     * hash is used while the file still has the size and modification time
+     * it was written with; otherwise the file is hashed again.
+     */
+    private boolean isUnchanged(String fileName, Path path, byte[] hash, long size) throws IOException {
+        final BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            written.remove(fileName);
+            return false;
+        }
+        if (attrs.size() != size) return false;
+
+        Written w = written.get(fileName);
+        if (w == null || w.size() != attrs.size() || !w.modified().equals(attrs.lastModifiedTime())) {
+            w = new Written(hashFile(path), attrs.lastModifiedTime(), attrs.size());
+            written.put(fileName, w);
+        }
+        return MessageDigest.isEqual(w.hash(), hash);
+    }
+
+    private ByteBufferOutputStream acquireBuffer() {
+        ByteBufferOutputStream buffer = buffers.poll();
+        return (buffer != null) ? buffer : new ByteBufferOutputStream(BUFFER_CHUNK, DIRECT_BUFFER);
+    }
+
+    private void releaseBuffer(ByteBufferOutputStream buffer) {
+        buffer.reset();
+        buffers.offer(buffer);
+    }
+
+    private static byte[] hashFile(Path path) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] buf = new byte[8192];
+            for (int n; (n = in.read(buf)) > 0; ) digest.update(buf, 0, n);
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
     private Path filePath(String fileName, String extension) {
         String fn = fileName.endsWith(extension) ? fileName : fileName + extension;
         return rootDir.resolve(fn);
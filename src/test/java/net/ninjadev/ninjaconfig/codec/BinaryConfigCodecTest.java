@@ -0,0 +1,76 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.annotations.Expose;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryConfigCodecTest {
+
+    @TempDir
+    Path dir;
+
+    private final BinaryConfigCodec codec = new BinaryConfigCodec();
+
+    /* the field ids of these names collide */
+    static class CollidingConfig {
+        @Expose int dsbjm;
+        @Expose int hraba;
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        SampleConfig written = SampleConfig.modified();
+        Path file = dir.resolve("config.bin");
+        codec.write(file, written);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertEquals(new MergeResult(true, false, false), result);
+        assertEquals(SampleConfig.dump(written), SampleConfig.dump(read));
+    }
+
+    @Test
+    void convertsFromAndToNestedJson() throws IOException {
+        SampleConfig written = SampleConfig.modified();
+        Path json = dir.resolve("config.json");
+        Path binary = dir.resolve("config.bin");
+        Path back = dir.resolve("back.json");
+        new GsonNestedCommentCodec().write(json, written);
+
+        BinaryConfigCodec.fromNestedJson(json, binary, SampleConfig.defaults());
+        BinaryConfigCodec.toNestedJson(binary, back, SampleConfig.defaults());
+
+        assertEquals(Files.readString(json), Files.readString(back));
+    }
+
+    @Test
+    void truncatedFileIsParseError() throws IOException {
+        Path file = dir.resolve("config.bin");
+        codec.write(file, SampleConfig.modified());
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        MergeResult result = codec.mergeInto(file, SampleConfig.defaults());
+
+        assertTrue(result.parseError());
+    }
+
+    @Test
+    void rejectsDuplicateFieldIds() {
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> codec.checkSupported(CollidingConfig.class));
+
+        assertTrue(ex.getMessage().contains("dsbjm"), ex.getMessage());
+        assertTrue(ex.getMessage().contains("hraba"), ex.getMessage());
+    }
+}
@@ -0,0 +1,128 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeneratedCodecTest {
+
+    @TempDir
+    Path dir;
+
+    private final ConfigCodec generated = CodecSupport.findGenerated(GeneratedConfig.class);
+
+    @Test
+    void codecIsGenerated() {
+        assertNotNull(generated);
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        GeneratedConfig written = GeneratedConfig.modified();
+        Path file = dir.resolve("config.json");
+        generated.write(file, written);
+
+        GeneratedConfig read = GeneratedConfig.defaults();
+        MergeResult result = generated.mergeInto(file, read);
+
+        assertEquals(new MergeResult(true, false, false, MergeResult.Format.NESTED), result);
+        assertEquals(SampleConfig.dump(written), SampleConfig.dump(read));
+    }
+
+    @Test
+    void writesLikeReflectiveCodec() throws IOException {
+        GeneratedConfig config = GeneratedConfig.modified();
+        Path reflective = dir.resolve("reflective.json");
+        Path file = dir.resolve("generated.json");
+        new GsonNestedCommentCodec().write(reflective, config);
+        generated.write(file, config);
+
+        assertEquals(Files.readString(reflective), Files.readString(file));
+    }
+
+    @Test
+    void nestedCodecDelegatesWhenEnabled() throws IOException {
+        ConfigCodec codec = new GsonNestedCommentCodec.Builder().generatedCodecs(true).build();
+
+        Spawns spawns = remergeTwice(codec);
+
+        // the generated codec binds every field again on reload
+        assertNotSame(spawns.first(), spawns.second());
+    }
+
+    @Test
+    void nestedCodecIgnoresGeneratedCodecByDefault() throws IOException {
+        Spawns spawns = remergeTwice(new GsonNestedCommentCodec());
+
+        assertSame(spawns.first(), spawns.second());
+    }
+
+    @Test
+    void readsValueFirstPojoAndKeyedMaps() throws IOException {
+        Path file = dir.resolve("config.json");
+        Files.writeString(file, "{\"range\":{\"value\":{\"value\":{\"value\":7},\"max\":{\"value\":9}}},"
+                + "\"byColor\":{\"value\":{\"BLUE\":2}},\"byId\":{\"value\":{\"-5\":\"m\"}}}");
+
+        GeneratedConfig read = GeneratedConfig.defaults();
+        MergeResult result = generated.mergeInto(file, read);
+
+        assertFalse(result.parseError());
+        assertEquals(7, read.range.value);
+        assertEquals(9, read.range.max);
+        assertEquals(Map.of(SampleConfig.Color.BLUE, 2), read.byColor);
+        assertEquals(Map.of(-5, "m"), read.byId);
+    }
+
+    @Test
+    void usesSerializedEnumNames() throws IOException {
+        Path file = dir.resolve("config.json");
+        generated.write(file, GeneratedConfig.modified());
+        assertTrue(Files.readString(file).contains("\"value\": \"slow\""));
+
+        Files.writeString(file, "{\"mode\":{\"value\":\"SLOW_MODE\"}}");
+        GeneratedConfig read = GeneratedConfig.defaults();
+        generated.mergeInto(file, read);
+
+        assertEquals(GeneratedConfig.Mode.SLOW, read.mode);
+    }
+
+    @Test
+    void rejectsOutOfRangeShortAndByte() throws IOException {
+        Path file = dir.resolve("config.json");
+        Files.writeString(file, "{\"level\":{\"value\":70000},\"tier\":{\"value\":-129},\"count\":{\"value\":4}}");
+
+        GeneratedConfig read = GeneratedConfig.defaults();
+        MergeResult result = generated.mergeInto(file, read);
+
+        assertTrue(result.missingKeys());
+        assertFalse(result.parseError());
+        assertEquals(1, read.level);
+        assertEquals((byte) 2, read.tier);
+        assertEquals(4, read.count);
+    }
+
+    private record Spawns(SampleConfig.Spawn first, SampleConfig.Spawn second) {}
+
+    private Spawns remergeTwice(ConfigCodec codec) throws IOException {
+        Path file = dir.resolve("config.json");
+        codec.write(file, GeneratedConfig.modified());
+
+        GeneratedConfig config = GeneratedConfig.defaults();
+        FieldFingerprints fingerprints = new FieldFingerprints();
+        codec.remergeInto(file, config, config::resetDefaults, fingerprints, null);
+        SampleConfig.Spawn first = config.spawn;
+        codec.remergeInto(file, config, config::resetDefaults, fingerprints, null);
+        return new Spawns(first, config.spawn);
+    }
+}
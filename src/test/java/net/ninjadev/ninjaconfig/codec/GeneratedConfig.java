@@ -0,0 +1,101 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+import net.ninjadev.ninjaconfig.annotation.Comment;
+import net.ninjadev.ninjaconfig.annotation.GenerateCodec;
+import net.ninjadev.ninjaconfig.api.ConfigBase;
+import net.ninjadev.ninjaconfig.codec.SampleConfig.Color;
+import net.ninjadev.ninjaconfig.codec.SampleConfig.Range;
+import net.ninjadev.ninjaconfig.codec.SampleConfig.Spawn;
+import net.ninjadev.ninjaconfig.collection.IntList;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Config bound by the codec generated by the annotation processor. */
+@GenerateCodec
+public class GeneratedConfig extends ConfigBase<GeneratedConfig> {
+
+    public enum Mode {
+        @SerializedName("fast") FAST,
+        @SerializedName(value = "slow", alternate = "SLOW_MODE") SLOW
+    }
+
+    @Expose @Comment("Display name") String name;
+    @Expose int count;
+    @Expose double ratio;
+    @Expose Integer boxed;
+    @Expose short level;
+    @Expose Byte tier;
+    @Expose @Comment("Preferred color") Color color;
+    @Expose Mode mode;
+    @Expose int[] ints;
+    @Expose IntList intList;
+    @Expose @Comment("Spawn point") Spawn spawn;
+    @Expose Range range;
+    @Expose List<Spawn> waypoints;
+    @Expose Map<String, Integer> byName;
+    @Expose Map<Color, Integer> byColor;
+    @Expose Map<Integer, String> byId;
+
+    @Override
+    public void resetDefaults() {
+        name = "default";
+        count = 1;
+        ratio = 0.5;
+        boxed = 3;
+        level = 1;
+        tier = 2;
+        color = Color.RED;
+        mode = Mode.FAST;
+        ints = new int[]{1};
+        intList = IntList.of(1);
+        spawn = new Spawn("minecraft:overworld", 64);
+        range = new Range(1, 2);
+        waypoints = new ArrayList<>();
+        byName = new LinkedHashMap<>();
+        byColor = new EnumMap<>(Color.class);
+        byId = new LinkedHashMap<>();
+    }
+
+    @Override
+    public void copyFrom(GeneratedConfig other) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @return a config with a non-default value in every field */
+    static GeneratedConfig modified() {
+        GeneratedConfig c = new GeneratedConfig();
+        c.name = "generated";
+        c.count = 9;
+        c.ratio = -1.25;
+        c.boxed = 11;
+        c.level = -300;
+        c.tier = -7;
+        c.color = Color.GREEN;
+        c.mode = Mode.SLOW;
+        c.ints = new int[]{4, 5};
+        c.intList = IntList.of(6);
+        c.spawn = new Spawn("minecraft:the_end", 80, "t");
+        c.range = new Range(5, 10);
+        c.waypoints = new ArrayList<>(List.of(new Spawn("w", 3)));
+        c.byName = new LinkedHashMap<>();
+        c.byName.put("a", 1);
+        c.byColor = new EnumMap<>(Color.class);
+        c.byColor.put(Color.BLUE, 7);
+        c.byId = new LinkedHashMap<>();
+        c.byId.put(42, "answer");
+        return c;
+    }
+
+    /** @return a defaulted config */
+    static GeneratedConfig defaults() {
+        GeneratedConfig c = new GeneratedConfig();
+        c.resetDefaults();
+        return c;
+    }
+}
@@ -0,0 +1,259 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.annotations.Expose;
+import net.ninjadev.ninjaconfig.annotation.Comment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GsonNestedCommentCodecTest {
+
+    record Point(@Expose int x, @Expose @Comment("Height") int y) {}
+
+    static class RecordConfig {
+        @Expose Point point = new Point(0, 0);
+        @Expose List<Point> points = new ArrayList<>();
+    }
+
+    static class GroupConfig {
+        @Expose Map<String, Map<String, List<Integer>>> groups = Map.of();
+        @Expose int count;
+    }
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void treeRoundTrip() throws IOException {
+        assertRoundTrip(new GsonNestedCommentCodec());
+    }
+
+    @Test
+    void streamingRoundTrip() throws IOException {
+        assertRoundTrip(new GsonNestedCommentCodec.Builder().streamingRead(true).streamingWrite(true).build());
+    }
+
+    @Test
+    void streamingWriteMatchesTreeWrite() throws IOException {
+        SampleConfig config = SampleConfig.modified();
+        Path tree = dir.resolve("tree.json");
+        Path streamed = dir.resolve("streamed.json");
+        new GsonNestedCommentCodec().write(tree, config);
+        new GsonNestedCommentCodec.Builder().streamingWrite(true).build().write(streamed, config);
+
+        assertEquals(Files.readString(tree), Files.readString(streamed));
+    }
+
+    @Test
+    void treeReadsEnumKeyedMap() throws IOException {
+        assertReadsEnumKeyedMap(new GsonNestedCommentCodec());
+    }
+
+    @Test
+    void streamingReadsEnumKeyedMap() throws IOException {
+        assertReadsEnumKeyedMap(new GsonNestedCommentCodec.Builder().streamingRead(true).build());
+    }
+
+    @Test
+    void treeReadsValueFirstPojo() throws IOException {
+        assertReadsValueFirstPojo(new GsonNestedCommentCodec());
+    }
+
+    @Test
+    void streamingReadsValueFirstPojo() throws IOException {
+        assertReadsValueFirstPojo(new GsonNestedCommentCodec.Builder().streamingRead(true).build());
+    }
+
+    @Test
+    void treeReadsValueMemberOfMap() throws IOException {
+        assertReadsValueMemberOfMap(new GsonNestedCommentCodec());
+    }
+
+    @Test
+    void streamingReadsValueMemberOfMap() throws IOException {
+        assertReadsValueMemberOfMap(new GsonNestedCommentCodec.Builder().streamingRead(true).build());
+    }
+
+    @Test
+    void hiddenClassReadsValueMemberOfMap() throws IOException {
+        assertReadsValueMemberOfMap(new HiddenClassCodec());
+    }
+
+    @Test
+    void treeReadsFlatFile() throws IOException {
+        assertReadsFlatFile(new GsonNestedCommentCodec());
+    }
+
+    @Test
+    void streamingReadsFlatFile() throws IOException {
+        assertReadsFlatFile(new GsonNestedCommentCodec.Builder().streamingRead(true).build());
+    }
+
+    @Test
+    void treeRoundTripsNestedRecords() throws IOException {
+        assertRoundTripsNestedRecords(new GsonNestedCommentCodec());
+    }
+
+    @Test
+    void streamingRoundTripsNestedRecords() throws IOException {
+        assertRoundTripsNestedRecords(new GsonNestedCommentCodec.Builder().streamingRead(true).streamingWrite(true).build());
+    }
+
+    @Test
+    void treeRemergeKeepsUnchangedFields() throws IOException {
+        ConfigCodec codec = new GsonNestedCommentCodec();
+        Path file = dir.resolve("config.json");
+        codec.write(file, SampleConfig.modified());
+
+        SampleConfig config = SampleConfig.defaults();
+        FieldFingerprints fingerprints = new FieldFingerprints();
+        codec.remergeInto(file, config, config::resetDefaults, fingerprints, null);
+        SampleConfig.Spawn spawn = config.spawn;
+        codec.remergeInto(file, config, config::resetDefaults, fingerprints, null);
+
+        assertSame(spawn, config.spawn);
+    }
+
+    @Test
+    void parallelRemergeBindsEveryField() throws IOException {
+        ConfigCodec codec = new GsonNestedCommentCodec.Builder().parallelThreshold(0).build();
+        Path file = dir.resolve("config.json");
+        codec.write(file, SampleConfig.modified());
+
+        SampleConfig config = SampleConfig.defaults();
+        FieldFingerprints fingerprints = new FieldFingerprints();
+        codec.remergeInto(file, config, config::resetDefaults, fingerprints, null);
+        SampleConfig.Spawn spawn = config.spawn;
+        MergeResult result = codec.remergeInto(file, config, config::resetDefaults, fingerprints, null);
+
+        assertEquals(new MergeResult(true, false, false, MergeResult.Format.NESTED), result);
+        assertNotSame(spawn, config.spawn);
+        assertEquals(SampleConfig.dump(SampleConfig.modified()), SampleConfig.dump(config));
+    }
+
+    @Test
+    void streamingRemergeReadsStreaming() throws IOException {
+        assertRemergeReadsStreaming(new GsonNestedCommentCodec.Builder().streamingRead(true).build());
+    }
+
+    @Test
+    void hiddenClassRemergeReadsStreaming() throws IOException {
+        assertRemergeReadsStreaming(new HiddenClassCodec());
+    }
+
+    /* only the streaming path keeps the fields bound before a syntax error */
+    private void assertRemergeReadsStreaming(ConfigCodec codec) throws IOException {
+        Path file = dir.resolve("config.json");
+        Files.writeString(file, "{\"count\":{\"value\":3},\"name\":{\"value\":");
+
+        SampleConfig config = SampleConfig.defaults();
+        MergeResult result = codec.remergeInto(file, config, config::resetDefaults, new FieldFingerprints(), null);
+
+        assertTrue(result.parseError());
+        assertEquals(3, config.count);
+    }
+
+    private void assertRoundTrip(ConfigCodec codec) throws IOException {
+        SampleConfig written = SampleConfig.modified();
+        Path file = dir.resolve("config.json");
+        codec.write(file, written);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertEquals(new MergeResult(true, false, false, MergeResult.Format.NESTED), result);
+        assertEquals(SampleConfig.dump(written), SampleConfig.dump(read));
+    }
+
+    private void assertRoundTripsNestedRecords(ConfigCodec codec) throws IOException {
+        RecordConfig written = new RecordConfig();
+        written.point = new Point(3, -4);
+        written.points.add(new Point(1, 2));
+        Path file = dir.resolve("config.json");
+        codec.write(file, written);
+
+        RecordConfig read = new RecordConfig();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertEquals(new MergeResult(true, false, false, MergeResult.Format.NESTED), result);
+        assertEquals(written.point, read.point);
+        assertEquals(written.points, read.points);
+    }
+
+    private void assertReadsEnumKeyedMap(ConfigCodec codec) throws IOException {
+        Path file = dir.resolve("config.json");
+        Files.writeString(file, "{\"count\":{\"value\":3},\"byColor\":{\"value\":{\"RED\":5}},\"byId\":{\"value\":{\"7\":\"x\"}}}");
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertTrue(result.missingKeys());
+        assertFalse(result.parseError());
+        assertEquals(3, read.count);
+        assertEquals(Map.of(SampleConfig.Color.RED, 5), read.byColor);
+        assertEquals(Map.of(7, "x"), read.byId);
+    }
+
+    private void assertReadsValueFirstPojo(ConfigCodec codec) throws IOException {
+        Path file = dir.resolve("config.json");
+        Files.writeString(file, "{\"count\":{\"value\":3},"
+                + "\"range\":{\"comment\":\"c\",\"value\":{\"value\":{\"value\":7},\"max\":{\"value\":9,\"comment\":\"m\"}}},"
+                + "\"ranges\":{\"value\":[{\"value\":1,\"max\":2},{\"value\":{\"value\":3},\"comment\":\"x\",\"max\":4}]}}");
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertEquals(MergeResult.Format.NESTED, result.format());
+        assertFalse(result.parseError());
+        assertEquals(3, read.count);
+        assertEquals(7, read.range.value);
+        assertEquals(9, read.range.max);
+        assertEquals(2, read.ranges.size());
+        assertEquals(1, read.ranges.get(0).value);
+        assertEquals(2, read.ranges.get(0).max);
+        assertEquals(3, read.ranges.get(1).value);
+        assertEquals(4, read.ranges.get(1).max);
+    }
+
+    private void assertReadsValueMemberOfMap(ConfigCodec codec) throws IOException {
+        Path file = dir.resolve("config.json");
+        Files.writeString(file, "{\"groups\":{\"value\":{\"g\":{\"value\":[1,2],\"other\":[3]}},\"comment\":\"c\"},"
+                + "\"count\":{\"value\":3}}");
+
+        GroupConfig read = new GroupConfig();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertEquals(new MergeResult(true, false, false, MergeResult.Format.NESTED), result);
+        assertEquals(Map.of("g", Map.of("value", List.of(1, 2), "other", List.of(3))), read.groups);
+        assertEquals(3, read.count);
+    }
+
+    private void assertReadsFlatFile(ConfigCodec codec) throws IOException {
+        Path file = dir.resolve("config.json");
+        Files.writeString(file, "{\"range\":{\"value\":7,\"max\":9},\"count\":{\"value\":3},"
+                + "\"spawn\":{\"world\":\"w\",\"y\":{\"value\":5,\"max\":6},\"tags\":[]}}");
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertEquals(MergeResult.Format.FLAT, result.format());
+        assertTrue(result.missingKeys());
+        assertFalse(result.parseError());
+        assertEquals(7, read.range.value);
+        assertEquals(9, read.range.max);
+        assertEquals(3, read.count);
+        assertEquals("minecraft:overworld", read.spawn.world);
+    }
+}
@@ -0,0 +1,54 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HiddenClassCodecTest {
+
+    @TempDir
+    Path dir;
+
+    private final HiddenClassCodec codec = new HiddenClassCodec();
+
+    @Test
+    void roundTrip() throws IOException {
+        SampleConfig written = SampleConfig.modified();
+        Path file = dir.resolve("config.json");
+        codec.write(file, written);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertEquals(new MergeResult(true, false, false, MergeResult.Format.NESTED), result);
+        assertEquals(SampleConfig.dump(written), SampleConfig.dump(read));
+    }
+
+    @Test
+    void writesLikeReflectiveCodec() throws IOException {
+        SampleConfig config = SampleConfig.modified();
+        Path reflective = dir.resolve("reflective.json");
+        Path hidden = dir.resolve("hidden.json");
+        new GsonNestedCommentCodec().write(reflective, config);
+        codec.write(hidden, config);
+
+        assertEquals(Files.readString(reflective), Files.readString(hidden));
+    }
+
+    @Test
+    void readsReflectiveOutput() throws IOException {
+        SampleConfig written = SampleConfig.modified();
+        Path file = dir.resolve("config.json");
+        new GsonNestedCommentCodec().write(file, written);
+
+        SampleConfig read = SampleConfig.defaults();
+        codec.mergeInto(file, read);
+
+        assertEquals(SampleConfig.dump(written), SampleConfig.dump(read));
+    }
+}
@@ -0,0 +1,154 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsoncConfigCodecTest {
+
+    @TempDir
+    Path dir;
+
+    private final JsoncConfigCodec codec = new JsoncConfigCodec();
+
+    @Test
+    void roundTrip() throws IOException {
+        SampleConfig written = SampleConfig.modified();
+        Path file = dir.resolve("config.json");
+        codec.write(file, written);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertEquals(new MergeResult(true, false, false, MergeResult.Format.COMMENTED), result);
+        assertEquals(SampleConfig.dump(written), SampleConfig.dump(read));
+    }
+
+    @Test
+    void writesEnumKeysByName() throws IOException {
+        Path file = dir.resolve("config.json");
+        codec.write(file, SampleConfig.modified());
+
+        String text = Files.readString(file);
+        assertTrue(text.contains("\"RED\": 5"), text);
+        assertTrue(text.contains("\"-3\": \"minus three\""), text);
+    }
+
+    @Test
+    void keepsWrapperShapedValuesInOwnForm() throws IOException {
+        SampleConfig written = SampleConfig.modified();
+        written.byName = new LinkedHashMap<>(Map.of("value", 3));
+        Path file = dir.resolve("config.json");
+        codec.write(file, written);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertEquals(MergeResult.Format.COMMENTED, result.format());
+        assertEquals(Map.of("value", 3), read.byName);
+    }
+
+    @Test
+    void migratesNestedFile() throws IOException {
+        SampleConfig written = SampleConfig.modified();
+        Path file = dir.resolve("config.json");
+        new GsonNestedCommentCodec().write(file, written);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertEquals(new MergeResult(true, false, false, MergeResult.Format.NESTED), result);
+        assertEquals(SampleConfig.dump(written), SampleConfig.dump(read));
+    }
+
+    @Test
+    void readsHandWrittenComments() throws IOException {
+        Path file = dir.resolve("config.json");
+        Files.writeString(file, """
+                /* header
+                   block */
+                {
+                  # hash comment
+                  name: 'single quoted', // trailing comment
+                  "count": /* inline */ 9,
+                  spawn: {
+                    // nested comment
+                    "world": "minecraft:the_end"
+                  }
+                }
+                """);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertFalse(result.parseError());
+        assertTrue(result.missingKeys());
+        assertEquals("single quoted", read.name);
+        assertEquals(9, read.count);
+        assertEquals("minecraft:the_end", read.spawn.world);
+    }
+
+    @Test
+    void keepsFieldsReadBeforeMalformedPart() throws IOException {
+        Path file = dir.resolve("config.json");
+        Files.writeString(file, """
+                {
+                  "count": 9,
+                  "big" 5,
+                  "ratio": 2
+                }
+                """);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertTrue(result.parseError());
+        assertEquals(9, read.count);
+        assertEquals(2, read.big);
+        assertEquals(0.5, read.ratio);
+    }
+
+    @Test
+    void writesEmptyContainersOnOneLine() throws IOException {
+        SampleConfig written = SampleConfig.defaults();
+        Path file = dir.resolve("config.json");
+        codec.write(file, written);
+
+        String text = Files.readString(file);
+        assertTrue(text.contains("\"waypoints\": [],"), text);
+        assertTrue(text.contains("\"byName\": {},"), text);
+
+        SampleConfig read = SampleConfig.modified();
+        codec.mergeInto(file, read);
+        assertEquals(SampleConfig.dump(written), SampleConfig.dump(read));
+    }
+
+    @Test
+    void trailingArrayCommaFailsOnlyThatField() throws IOException {
+        Path file = dir.resolve("config.json");
+        Files.writeString(file, """
+                {
+                  "ints": [1, 2,],
+                  "count": 9
+                }
+                """);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        // the lenient parser reads the trailing comma as a null element, which int[] rejects
+        assertEquals(new MergeResult(true, true, false, MergeResult.Format.COMMENTED), result);
+        assertArrayEquals(new int[]{1}, read.ints);
+        assertEquals(9, read.count);
+    }
+}
@@ -0,0 +1,209 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.annotations.Expose;
+import net.minecraft.nbt.NbtByte;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIntArray;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtLongArray;
+import net.minecraft.nbt.NbtString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NbtConfigCodecTest {
+
+    /** Config whose tags are built by hand with the vanilla API in {@link #vanillaTags()}. */
+    static class VanillaConfig {
+        static class Spawn {
+            @Expose int x;
+            @Expose String dimension;
+        }
+
+        @Expose int count;
+        @Expose long seed;
+        @Expose double scale;
+        @Expose float speed;
+        @Expose boolean enabled;
+        @Expose String world;
+        @Expose Byte tier;
+        @Expose int[] levels;
+        @Expose List<String> tags;
+        @Expose List<Integer> gaps;
+        @Expose Spawn spawn;
+        @Expose String unset;
+    }
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTrip() throws IOException {
+        NbtConfigCodec codec = new NbtConfigCodec();
+        SampleConfig written = SampleConfig.modified();
+        Path file = dir.resolve("config.nbt");
+        codec.write(file, written);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertEquals(new MergeResult(true, false, false), result);
+        // compounds do not keep the order of their members
+        assertEquals(written.byName, read.byName);
+        assertEquals(written.byId, read.byId);
+        assertEquals(written.weights, read.weights);
+        read.byName = written.byName;
+        read.byId = written.byId;
+        read.weights = written.weights;
+        assertEquals(SampleConfig.dump(written), SampleConfig.dump(read));
+    }
+
+    @Test
+    void writesTypedTags() throws IOException {
+        Path file = dir.resolve("config.nbt");
+        new NbtConfigCodec().write(file, SampleConfig.modified());
+
+        NbtCompound root;
+        try (InputStream in = Files.newInputStream(file)) {
+            root = NbtIo.readCompressed(in);
+        }
+        assertInstanceOf(NbtByte.class, root.get("enabled"));
+        assertInstanceOf(NbtIntArray.class, root.get("ints"));
+        assertInstanceOf(NbtLongArray.class, root.get("longs"));
+        assertInstanceOf(NbtIntArray.class, root.get("intList"));
+        assertInstanceOf(NbtString.class, ((NbtCompound) root.get("spawn")).get("world"));
+        assertInstanceOf(NbtList.class, root.get("ranges"));
+        assertInstanceOf(NbtCompound.class, root.get("byColor"));
+        assertTrue(((NbtCompound) root.get("byColor")).contains("RED"));
+        assertFalse(((NbtCompound) root.get("range")).contains("comment"));
+    }
+
+    @Test
+    void writesSameBytesAsVanilla() throws IOException {
+        Path file = dir.resolve("config.nbt");
+        new NbtConfigCodec().write(file, vanillaConfig());
+
+        Path vanilla = dir.resolve("vanilla.nbt");
+        try (OutputStream out = Files.newOutputStream(vanilla)) {
+            NbtIo.writeCompressed(vanillaTags(), out);
+        }
+
+        assertArrayEquals(Files.readAllBytes(vanilla), Files.readAllBytes(file));
+    }
+
+    @Test
+    void readsVanillaFile() throws IOException {
+        Path vanilla = dir.resolve("vanilla.nbt");
+        try (OutputStream out = Files.newOutputStream(vanilla)) {
+            NbtIo.writeCompressed(vanillaTags(), out);
+        }
+
+        VanillaConfig read = new VanillaConfig();
+        MergeResult result = new NbtConfigCodec().mergeInto(vanilla, read);
+
+        assertFalse(result.parseError());
+        VanillaConfig expected = vanillaConfig();
+        assertEquals(expected.count, read.count);
+        assertEquals(expected.seed, read.seed);
+        assertEquals(expected.scale, read.scale);
+        assertEquals(expected.speed, read.speed);
+        assertEquals(expected.enabled, read.enabled);
+        assertEquals(expected.world, read.world);
+        assertEquals(expected.tier, read.tier);
+        assertArrayEquals(expected.levels, read.levels);
+        assertEquals(expected.tags, read.tags);
+        assertEquals(expected.gaps, read.gaps);
+        assertEquals(expected.spawn.x, read.spawn.x);
+        assertEquals(expected.spawn.dimension, read.spawn.dimension);
+        assertNull(read.unset);
+    }
+
+    @Test
+    void writesCommentSidecar() throws IOException {
+        NbtConfigCodec codec = new NbtConfigCodec.Builder().commentSidecar(true).build();
+        Path file = dir.resolve("config.nbt");
+        codec.write(file, SampleConfig.modified());
+
+        String sidecar = Files.readString(dir.resolve("config.nbt" + NbtConfigCodec.SIDECAR_SUFFIX));
+        assertTrue(sidecar.contains("\"color\": \"Preferred color\""), sidecar);
+        assertFalse(sidecar.contains("\"count\""), sidecar);
+    }
+
+    @Test
+    void reportsUnreadableFile() throws IOException {
+        Path file = dir.resolve("config.nbt");
+        Files.writeString(file, "not nbt");
+
+        MergeResult result = new NbtConfigCodec().mergeInto(file, SampleConfig.defaults());
+
+        assertTrue(result.parseError());
+    }
+
+    private static VanillaConfig vanillaConfig() {
+        VanillaConfig c = new VanillaConfig();
+        c.count = 3;
+        c.seed = -7L << 40;
+        c.scale = 0.1;
+        c.speed = 1.25f;
+        c.enabled = true;
+        c.world = "minecraft:overworld";
+        c.tier = 2;
+        c.levels = new int[]{1, 2, 3};
+        c.tags = List.of("minecraft:logs", "minecraft:leaves");
+        c.gaps = Arrays.asList(1, null, 3);
+        c.spawn = new VanillaConfig.Spawn();
+        c.spawn.x = -16;
+        c.spawn.dimension = "minecraft:the_end";
+        return c;
+    }
+
+    /* the tags of vanillaConfig(), in the order the codec puts them */
+    private static NbtCompound vanillaTags() {
+        NbtCompound root = new NbtCompound();
+        root.putInt("count", 3);
+        root.putLong("seed", -7L << 40);
+        root.putDouble("scale", 0.1);
+        root.putFloat("speed", 1.25f);
+        root.putBoolean("enabled", true);
+        root.putString("world", "minecraft:overworld");
+        root.putInt("tier", 2);
+        root.putIntArray("levels", new int[]{1, 2, 3});
+
+        NbtList tags = new NbtList();
+        tags.add(NbtString.of("minecraft:logs"));
+        tags.add(NbtString.of("minecraft:leaves"));
+        root.put("tags", tags);
+
+        // a list holding null is boxed: each element under the empty key, null as an empty compound
+        NbtList gaps = new NbtList();
+        NbtCompound one = new NbtCompound();
+        one.putInt("", 1);
+        gaps.add(one);
+        gaps.add(new NbtCompound());
+        NbtCompound three = new NbtCompound();
+        three.putInt("", 3);
+        gaps.add(three);
+        root.put("gaps", gaps);
+
+        NbtCompound spawn = new NbtCompound();
+        spawn.putInt("x", -16);
+        spawn.putString("dimension", "minecraft:the_end");
+        root.put("spawn", spawn);
+        return root;
+    }
+}
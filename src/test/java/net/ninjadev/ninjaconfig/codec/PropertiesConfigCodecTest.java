@@ -0,0 +1,108 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PropertiesConfigCodecTest {
+
+    @TempDir
+    Path dir;
+
+    private final PropertiesConfigCodec codec = new PropertiesConfigCodec();
+
+    @Test
+    void roundTrip() throws IOException {
+        SampleConfig written = SampleConfig.modified();
+        Path file = dir.resolve("config.properties");
+        codec.write(file, written);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertEquals(new MergeResult(true, false, false), result);
+        assertEquals(SampleConfig.dump(written), SampleConfig.dump(read));
+    }
+
+    @Test
+    void writesNestedFieldsAsDottedKeys() throws IOException {
+        Path file = dir.resolve("config.properties");
+        codec.write(file, SampleConfig.modified());
+
+        String text = Files.readString(file);
+        assertTrue(text.contains("# Spawn point\n# Dimension id\nspawn.world=minecraft:the_nether\n"), text);
+        assertTrue(text.contains("range.value=5\n"), text);
+        assertTrue(text.contains("byColor={\"RED\":5,\"GREEN\":6}\n"), text);
+    }
+
+    @Test
+    void readsHandWrittenFile() throws IOException {
+        Path file = dir.resolve("config.properties");
+        Files.writeString(file, """
+                # comment
+                ! another comment
+                count : 3
+                name = first \\
+                       second
+                range.value 7
+                range.max=9
+                spawn.world=minecraft:end
+                spawn.tags=["a","b"]
+                ints=[4,5]
+                byColor={"BLUE":2}
+                unknown=1
+                """);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertTrue(result.missingKeys());
+        assertFalse(result.parseError());
+        assertEquals(3, read.count);
+        assertEquals("first second", read.name);
+        assertEquals(7, read.range.value);
+        assertEquals(9, read.range.max);
+        assertEquals("minecraft:end", read.spawn.world);
+        assertEquals(64, read.spawn.y);
+        assertEquals(List.of("a", "b"), read.spawn.tags);
+        assertEquals(2, read.ints.length);
+        assertEquals(Map.of(SampleConfig.Color.BLUE, 2), read.byColor);
+    }
+
+    @Test
+    void reportsMalformedValueAsMissing() throws IOException {
+        Path file = dir.resolve("config.properties");
+        Files.writeString(file, "count=three\n");
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertTrue(result.missingKeys());
+        assertFalse(result.parseError());
+        assertEquals(1, read.count);
+    }
+
+    @Test
+    void skipsKeyWithMalformedEscape() throws IOException {
+        Path file = dir.resolve("config.properties");
+        Files.writeString(file, "co\\u00zzunt=5\ncount=3\nname=\\u12\nspawn.y=9\n");
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertTrue(result.missingKeys());
+        assertFalse(result.parseError());
+        assertEquals(3, read.count);
+        assertEquals("default", read.name);
+        assertEquals(9, read.spawn.y);
+    }
+}
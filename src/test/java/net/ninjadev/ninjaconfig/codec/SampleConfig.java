@@ -0,0 +1,159 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import com.google.gson.annotations.Expose;
+import net.ninjadev.ninjaconfig.annotation.Comment;
+import net.ninjadev.ninjaconfig.api.ConfigBase;
+import net.ninjadev.ninjaconfig.collection.IntList;
+import net.ninjadev.ninjaconfig.collection.LongList;
+import net.ninjadev.ninjaconfig.collection.StringIntMap;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Config exercising every kind of value the codecs bind. */
+public class SampleConfig extends ConfigBase<SampleConfig> {
+
+    public enum Color { RED, GREEN, BLUE }
+
+    /** Nested POJO with a comment on one of its fields. */
+    public static class Spawn {
+        @Expose @Comment("Dimension id") String world;
+        @Expose int y;
+        @Expose List<String> tags;
+
+        Spawn() {}
+
+        Spawn(String world, int y, String... tags) {
+            this.world = world;
+            this.y = y;
+            this.tags = new ArrayList<>(List.of(tags));
+        }
+    }
+
+    /** POJO whose first field is named like the wrapper member. */
+    public static class Range {
+        @Expose int value;
+        @Expose @Comment("Upper bound") int max;
+
+        Range() {}
+
+        Range(int value, int max) {
+            this.value = value;
+            this.max = max;
+        }
+    }
+
+    @Expose @Comment("Display name\nshown in the menu") String name;
+    @Expose int count;
+    @Expose long big;
+    @Expose double ratio;
+    @Expose float scale;
+    @Expose boolean enabled;
+    @Expose Integer boxed;
+    @Expose @Comment("Preferred color") Color color;
+
+    @Expose int[] ints;
+    @Expose long[] longs;
+    @Expose double[] doubles;
+    @Expose byte[] bytes;
+
+    @Expose IntList intList;
+    @Expose LongList longList;
+    @Expose StringIntMap weights;
+    @Expose BitSet flags;
+
+    @Expose @Comment("Spawn point") Spawn spawn;
+    @Expose List<Spawn> waypoints;
+    @Expose Range range;
+    @Expose List<Range> ranges;
+    @Expose Map<String, Integer> byName;
+    @Expose Map<Color, Integer> byColor;
+    @Expose Map<Integer, String> byId;
+
+    @Override
+    public void resetDefaults() {
+        name = "default";
+        count = 1;
+        big = 2;
+        ratio = 0.5;
+        scale = 1;
+        enabled = false;
+        boxed = 3;
+        color = Color.RED;
+        ints = new int[]{1};
+        longs = new long[]{1};
+        doubles = new double[]{1};
+        bytes = new byte[]{1};
+        intList = IntList.of(1);
+        longList = LongList.of(1);
+        weights = new StringIntMap();
+        flags = new BitSet();
+        spawn = new Spawn("minecraft:overworld", 64);
+        waypoints = new ArrayList<>();
+        range = new Range(1, 2);
+        ranges = new ArrayList<>();
+        byName = new LinkedHashMap<>();
+        byColor = new EnumMap<>(Color.class);
+        byId = new LinkedHashMap<>();
+    }
+
+    @Override
+    public void copyFrom(SampleConfig other) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @return a config with a non-default value in every field */
+    static SampleConfig modified() {
+        SampleConfig c = new SampleConfig();
+        c.name = "Ninja \"config\" é\n\ttab";
+        c.count = -42;
+        c.big = 1L << 40;
+        c.ratio = 0.1;
+        c.scale = 0.25f;
+        c.enabled = true;
+        c.boxed = 7;
+        c.color = Color.BLUE;
+        c.ints = new int[]{3, -1, Integer.MAX_VALUE};
+        c.longs = new long[]{Long.MIN_VALUE, 5};
+        c.doubles = new double[]{1.5, -2.25};
+        c.bytes = new byte[]{-128, 0, 127};
+        c.intList = IntList.of(4, 5, 6);
+        c.longList = LongList.of(7, 1L << 50);
+        c.weights = new StringIntMap();
+        c.weights.put("minecraft:stone", 10);
+        c.weights.put("minecraft:dirt", 2);
+        c.flags = new BitSet();
+        c.flags.set(1);
+        c.flags.set(70);
+        c.spawn = new Spawn("minecraft:the_nether", -12, "a", "b c");
+        c.waypoints = new ArrayList<>(List.of(new Spawn("w1", 1), new Spawn("w2", 2, "x")));
+        c.range = new Range(5, 10);
+        c.ranges = new ArrayList<>(List.of(new Range(-1, 0), new Range(3, 4)));
+        c.byName = new LinkedHashMap<>();
+        c.byName.put("one", 1);
+        c.byName.put("two words", 2);
+        c.byColor = new EnumMap<>(Color.class);
+        c.byColor.put(Color.RED, 5);
+        c.byColor.put(Color.GREEN, 6);
+        c.byId = new LinkedHashMap<>();
+        c.byId.put(10, "ten");
+        c.byId.put(-3, "minus three");
+        return c;
+    }
+
+    /** @return a defaulted config */
+    static SampleConfig defaults() {
+        SampleConfig c = new SampleConfig();
+        c.resetDefaults();
+        return c;
+    }
+
+    /** @return the values of {@code config} as JSON, for comparing two configs */
+    static String dump(Object config) {
+        return CodecSupport.gsonBuilder().create().toJson(config);
+    }
+}
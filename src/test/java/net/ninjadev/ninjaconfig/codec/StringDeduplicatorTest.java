@@ -0,0 +1,134 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StringDeduplicatorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void treeReadsShareStrings() throws IOException {
+        assertSharesStrings(new GsonNestedCommentCodec());
+    }
+
+    @Test
+    void streamingReadsShareStrings() throws IOException {
+        assertSharesStrings(new GsonNestedCommentCodec.Builder().streamingRead(true).build());
+    }
+
+    @Test
+    void parallelReadsShareStrings() throws IOException {
+        assertSharesStrings(new GsonNestedCommentCodec.Builder().parallelThreshold(0).build());
+    }
+
+    @Test
+    void hiddenClassReadsShareStrings() throws IOException {
+        assertSharesStrings(new HiddenClassCodec());
+    }
+
+    @Test
+    void jsoncReadsShareStrings() throws IOException {
+        assertSharesStrings(new JsoncConfigCodec());
+    }
+
+    @Test
+    void binaryReadsShareStrings() throws IOException {
+        assertSharesStrings(new BinaryConfigCodec());
+    }
+
+    @Test
+    void tomlReadsShareStrings() throws IOException {
+        assertSharesStrings(new TomlConfigCodec());
+    }
+
+    @Test
+    void propertiesReadsShareStrings() throws IOException {
+        assertSharesStrings(new PropertiesConfigCodec());
+    }
+
+    @Test
+    void readsWithoutTableKeepTheirOwnStrings() throws IOException {
+        ConfigCodec codec = new GsonNestedCommentCodec();
+        SampleConfig a = SampleConfig.defaults();
+        SampleConfig b = SampleConfig.defaults();
+        StringDeduplicator strings = new StringDeduplicator();
+
+        codec.mergeInto(writeModified(codec, "first"), a, strings);
+        StringDeduplicator.Stats stats = strings.stats();
+        codec.mergeInto(writeModified(codec, "second"), b);
+
+        assertNotSame(a.spawn.world, b.spawn.world);
+        assertEquals(stats, strings.stats());
+    }
+
+    @Test
+    void namesAreSharedButNotCountedAsSaved() {
+        StringDeduplicator strings = new StringDeduplicator();
+        String first = new String("minecraft:overworld");
+        String second = new String("minecraft:overworld");
+
+        assertSame(first, strings.canonicalizeName(first));
+        assertSame(first, strings.canonicalizeName(second));
+        assertEquals(new StringDeduplicator.Stats(2, 1, 1, 0), strings.stats());
+
+        assertSame(first, strings.canonicalize(new String("minecraft:overworld")));
+        assertTrue(strings.stats().bytesSaved() > 0);
+    }
+
+    @Test
+    void releasesStringsNoLongerReferenced() throws InterruptedException {
+        StringDeduplicator strings = new StringDeduplicator();
+        strings.canonicalize(new String("minecraft:the_nether"));
+
+        for (int i = 0; i < 50 && strings.stats().distinct() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(0, strings.stats().distinct());
+
+        String again = new String("minecraft:the_nether");
+        assertSame(again, strings.canonicalize(again));
+    }
+
+    private void assertSharesStrings(ConfigCodec codec) throws IOException {
+        SampleConfig a = SampleConfig.defaults();
+        SampleConfig b = SampleConfig.defaults();
+        StringDeduplicator strings = new StringDeduplicator();
+
+        codec.mergeInto(writeModified(codec, "first"), a, strings);
+        codec.mergeInto(writeModified(codec, "second"), b, strings);
+
+        assertEquals(SampleConfig.dump(a), SampleConfig.dump(b));
+        assertSame(a.name, b.name);
+        assertSame(a.spawn.world, b.spawn.world);
+        assertSame(a.spawn.tags.get(1), b.spawn.tags.get(1));
+        assertSame(a.waypoints.get(0).world, b.waypoints.get(0).world);
+        assertSame(key(a.byName, "two words"), key(b.byName, "two words"));
+        assertSame(a.byId.get(10), b.byId.get(10));
+        assertTrue(strings.stats().duplicates() > 0);
+    }
+
+    private Path writeModified(ConfigCodec codec, String name) throws IOException {
+        Path file = dir.resolve(name + codec.defaultExtension());
+        codec.write(file, SampleConfig.modified());
+        return file;
+    }
+
+    private static String key(Map<String, ?> map, String key) {
+        for (String k : map.keySet()) {
+            if (k.equals(key)) return k;
+        }
+        throw new AssertionError("missing key " + key);
+    }
+}
@@ -0,0 +1,144 @@
+package net.ninjadev.ninjaconfig.codec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TomlConfigCodecTest {
+
+    @TempDir
+    Path dir;
+
+    private final TomlConfigCodec codec = new TomlConfigCodec();
+
+    @Test
+    void roundTrip() throws IOException {
+        SampleConfig written = SampleConfig.modified();
+        Path file = dir.resolve("config.toml");
+        codec.write(file, written);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertEquals(new MergeResult(true, false, false), result);
+        assertEquals(SampleConfig.dump(written), SampleConfig.dump(read));
+    }
+
+    @Test
+    void writesNestedObjectsAsTables() throws IOException {
+        Path file = dir.resolve("config.toml");
+        codec.write(file, SampleConfig.modified());
+
+        String text = Files.readString(file);
+        assertTrue(text.contains("[spawn]"), text);
+        assertTrue(text.contains("[[waypoints]]"), text);
+        assertTrue(text.contains("[byColor]\nRED = 5"), text);
+    }
+
+    @Test
+    void readsHandWrittenFile() throws IOException {
+        Path file = dir.resolve("config.toml");
+        Files.writeString(file, """
+                count = 3
+                ints = [ 4, 0x10, -2 ]
+
+                [range]
+                value = 7
+                max = 9
+
+                [[ranges]]
+                value = 1
+                max = 2
+
+                [[ranges]]
+                value = 3
+                max = 4
+
+                [byColor]
+                GREEN = 6
+                """);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertTrue(result.missingKeys());
+        assertFalse(result.parseError());
+        assertEquals(3, read.count);
+        assertArrayEquals(new int[]{4, 16, -2}, read.ints);
+        assertEquals(7, read.range.value);
+        assertEquals(9, read.range.max);
+        assertEquals(2, read.ranges.size());
+        assertEquals(3, read.ranges.get(1).value);
+        assertEquals(Map.of(SampleConfig.Color.GREEN, 6), read.byColor);
+    }
+
+    @Test
+    void mergesNonAdjacentDottedKeys() throws IOException {
+        Path file = dir.resolve("config.toml");
+        Files.writeString(file, """
+                spawn.world = "nether"
+                count = 5
+                spawn.y = 64
+                """);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertFalse(result.parseError());
+        assertEquals("nether", read.spawn.world);
+        assertEquals(64, read.spawn.y);
+        assertEquals(5, read.count);
+    }
+
+    @Test
+    void mergesReopenedTables() throws IOException {
+        Path file = dir.resolve("config.toml");
+        Files.writeString(file, """
+                [spawn]
+                world = "nether"
+
+                [[ranges]]
+                value = 1
+                max = 2
+
+                [range]
+                value = 7
+
+                [spawn.extra]
+                size = 1
+
+                [[ranges]]
+                value = 3
+                max = 4
+                """);
+
+        SampleConfig read = SampleConfig.defaults();
+        MergeResult result = codec.mergeInto(file, read);
+
+        assertFalse(result.parseError());
+        assertEquals("nether", read.spawn.world);
+        assertEquals(7, read.range.value);
+        assertEquals(2, read.ranges.size());
+        assertEquals(1, read.ranges.get(0).value);
+        assertEquals(3, read.ranges.get(1).value);
+    }
+
+    @Test
+    void reportsSyntaxError() throws IOException {
+        Path file = dir.resolve("config.toml");
+        Files.writeString(file, "count = 3\nname = \"unterminated\n");
+
+        MergeResult result = codec.mergeInto(file, SampleConfig.defaults());
+
+        assertTrue(result.parseError());
+    }
+}
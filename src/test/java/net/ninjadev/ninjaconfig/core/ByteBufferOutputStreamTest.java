@@ -0,0 +1,49 @@
+package net.ninjadev.ninjaconfig.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ByteBufferOutputStreamTest {
+
+    @Test
+    void writesAcrossChunks() {
+        ByteBufferOutputStream out = new ByteBufferOutputStream(4, 8);
+        byte[] bytes = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11};
+        out.write(bytes[0]);
+        out.write(bytes, 1, bytes.length - 1);
+
+        assertEquals(bytes.length, out.size());
+        assertArrayEquals(bytes, concat(out.contents()));
+    }
+
+    @Test
+    void spillsPastDirectLimitToHeap() {
+        ByteBufferOutputStream out = new ByteBufferOutputStream(4, 8);
+        out.write(new byte[12], 0, 12);
+        ByteBuffer[] first = out.contents();
+        assertTrue(first[0].isDirect());
+        assertTrue(first[1].isDirect());
+        assertFalse(first[2].isDirect());
+
+        out.reset();
+        out.write(new byte[]{7, 8, 9, 10, 11, 12}, 0, 6);
+
+        assertEquals(6, out.size());
+        assertArrayEquals(new byte[]{7, 8, 9, 10, 11, 12}, concat(out.contents()));
+        assertEquals(2, out.contents().length);
+    }
+
+    private static byte[] concat(ByteBuffer[] chunks) {
+        int n = 0;
+        for (ByteBuffer c : chunks) n += c.remaining();
+        ByteBuffer all = ByteBuffer.allocate(n);
+        for (ByteBuffer c : chunks) all.put(c);
+        return all.array();
+    }
+}
@@ -0,0 +1,134 @@
+package net.ninjadev.ninjaconfig.core;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.annotations.Expose;
+import net.ninjadev.ninjaconfig.annotation.Comment;
+import net.ninjadev.ninjaconfig.api.ConfigBase;
+import net.ninjadev.ninjaconfig.codec.BinaryConfigCodec;
+import net.ninjadev.ninjaconfig.codec.ConfigCodec;
+import net.ninjadev.ninjaconfig.codec.GsonNestedCommentCodec;
+import net.ninjadev.ninjaconfig.codec.JsoncConfigCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.helpers.NOPLogger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigManagerTest {
+
+    public static class TestConfig extends ConfigBase<TestConfig> {
+        @Expose @Comment("Display name") String name;
+        @Expose int count;
+
+        @Override
+        public void resetDefaults() {
+            name = "default";
+            count = 1;
+        }
+
+        @Override
+        public void copyFrom(TestConfig other) {
+            name = other.name;
+            count = other.count;
+        }
+    }
+
+    /* the binary field ids of these names collide */
+    public static class CollidingConfig extends ConfigBase<CollidingConfig> {
+        @Expose int dsbjm;
+        @Expose int hraba;
+
+        @Override
+        public void resetDefaults() {}
+
+        @Override
+        public void copyFrom(CollidingConfig other) {}
+    }
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rewritesFlatFileNested() throws IOException {
+        Path file = dir.resolve("test.json");
+        Files.writeString(file, "{\"name\":\"flat\",\"count\":3}");
+
+        TestConfig config = manager(new GsonNestedCommentCodec()).register("test", new TestConfig());
+
+        assertEquals("flat", config.name);
+        assertEquals(3, config.count);
+        JsonObject written = JsonParser.parseString(Files.readString(file)).getAsJsonObject();
+        assertEquals(3, written.getAsJsonObject("count").get("value").getAsInt());
+        assertEquals("Display name", written.getAsJsonObject("name").get("comment").getAsString());
+    }
+
+    @Test
+    void rewritesNestedFileAsJsonc() throws IOException {
+        Path file = dir.resolve("test.json");
+        TestConfig source = new TestConfig();
+        source.name = "nested";
+        source.count = 3;
+        new GsonNestedCommentCodec().write(file, source);
+
+        TestConfig config = manager(new JsoncConfigCodec()).register("test", new TestConfig());
+
+        assertEquals("nested", config.name);
+        assertEquals(3, config.count);
+        String text = Files.readString(file);
+        assertTrue(text.contains("// Display name"), text);
+        assertTrue(text.contains("\"count\": 3"), text);
+        assertFalse(text.contains("\"value\""), text);
+    }
+
+    @Test
+    void rewritesJsoncFileNested() throws IOException {
+        Path file = dir.resolve("test.json");
+        Files.writeString(file, "{\n  // Display name\n  \"name\": \"commented\",\n  \"count\": 3\n}\n");
+
+        TestConfig config = manager(new GsonNestedCommentCodec()).register("test", new TestConfig());
+
+        assertEquals("commented", config.name);
+        assertEquals(3, config.count);
+        JsonObject written = JsonParser.parseString(Files.readString(file)).getAsJsonObject();
+        assertEquals("commented", written.getAsJsonObject("name").get("value").getAsString());
+    }
+
+    @Test
+    void keepsFileInWrittenForm() throws IOException {
+        Path file = dir.resolve("test.json");
+        String compact = "{\"name\":{\"value\":\"kept\"},\"count\":{\"value\":3}}";
+        Files.writeString(file, compact);
+
+        TestConfig config = manager(new GsonNestedCommentCodec()).register("test", new TestConfig());
+
+        assertEquals("kept", config.name);
+        assertEquals(compact, Files.readString(file));
+    }
+
+    @Test
+    void registerRejectsClassTheCodecCannotHandle() {
+        ConfigManager manager = manager(new BinaryConfigCodec());
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> manager.register("test", new CollidingConfig()));
+
+        assertTrue(ex.getMessage().contains("same binary field id"), ex.getMessage());
+        assertFalse(Files.exists(dir.resolve("test.bin")));
+    }
+
+    private ConfigManager manager(ConfigCodec codec) {
+        return new ConfigManager.Builder("test")
+                .rootDir(dir)
+                .codec(codec)
+                .logger(NOPLogger.NOP_LOGGER)
+                .build();
+    }
+}